@@ -0,0 +1,111 @@
+package sort;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link VectorSort} 使用的向量化划分，依赖 jdk.incubator.vector 模块
+ * 放在单独的源码目录 src-vector 中，默认编译 src 时不需要这个模块；编译和运行时都要加上 --add-modules jdk.incubator.vector：
+ * javac --add-modules jdk.incubator.vector -d out $(find src src-vector -name '*.java')
+ * {@link VectorSort} 通过反射创建这个类的实例，类不存在或模块不可用时退回标量排序
+ */
+final class VectorKernel implements VectorSort.Kernel {
+    /**
+     * 每次处理的 int 个数：平台支持 256 位向量时为 8，否则为 4
+     * 更宽的向量需要的重排表太大（16 个通道需要 65536 项），不使用
+     */
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED.length() >= 8
+            ? IntVector.SPECIES_256 : IntVector.SPECIES_128;
+    private static final int LANES = SPECIES.length();
+    /**
+     * 重排表：从 bits * LANES 开始的 LANES 个下标，把位掩码 bits 中为 1 的通道按顺序移到最前面
+     * 用 int 数组保存下标向量，而不是 VectorShuffle 对象数组，读取时不需要拆箱
+     */
+    private static final int[] COMPRESS = createCompressTable();
+    private static final int ALL_LANES = (1 << LANES) - 1;
+    private static final IntVector ZERO = IntVector.zero(SPECIES);
+    /**
+     * 第 i 个通道为 1 << i，用来把比较结果转成位掩码
+     */
+    private static final IntVector LANE_BITS = IntVector.broadcast(SPECIES, 1)
+            .lanewise(VectorOperators.LSHL, IntVector.zero(SPECIES).addIndex(1));
+
+    VectorKernel() {
+    }
+
+    /**
+     * 平台是否真正支持这个宽度的向量运算，不支持时 Vector API 会退化为很慢的 Java 实现
+     */
+    @Override
+    public boolean isSupported() {
+        return IntVector.SPECIES_PREFERRED.length() >= 4;
+    }
+
+    @Override
+    public int lanes() {
+        return LANES;
+    }
+
+    /**
+     * 划分 a[from, to)：小于 pivot（orEqual 为 true 时为不大于）的元素放到前面，返回第一个其它元素的位置
+     * 每次读入一个向量，与 pivot 比较得到掩码，用查表得到的重排把满足条件的通道压缩到前面整段写回 a，
+     * 其余通道压缩后写到 scratch，最后把 scratch 复制回 a，整个过程没有依赖数据的分支
+     * a 的写位置始终不超过读位置，写回的向量不会覆盖未读的元素
+     * 比较运算符和掩码转换的写法都是为了让 JIT 生成向量指令：比较运算符必须是常量，所以“不大于 pivot”按“小于 pivot + 1”比较；
+     * VectorMask.toLong 在 JDK 17 上没有内联为向量指令，改用 blend 和求和得到位掩码
+     *
+     * @param scratch 长度不小于 to - from + LANES
+     */
+    @Override
+    public int partition(int[] a, int from, int to, int pivot, boolean orEqual, int[] scratch) {
+        if (orEqual && pivot == Integer.MAX_VALUE) {
+            return to;
+        }
+        int bound = orEqual ? pivot + 1 : pivot;
+        int left = from;
+        int right = 0;
+        int i = from;
+        for (int end = to - LANES; i <= end; i += LANES) {
+            IntVector v = IntVector.fromArray(SPECIES, a, i);
+            VectorMask<Integer> mask = v.compare(VectorOperators.LT, bound);
+            int bits = ZERO.blend(LANE_BITS, mask).reduceLanes(VectorOperators.ADD);
+            int count = Integer.bitCount(bits);
+            IntVector.fromArray(SPECIES, COMPRESS, bits * LANES).selectFrom(v).intoArray(a, left);
+            IntVector.fromArray(SPECIES, COMPRESS, (~bits & ALL_LANES) * LANES).selectFrom(v).intoArray(scratch, right);
+            left += count;
+            right += LANES - count;
+        }
+        for (; i < to; i++) {
+            int x = a[i];
+            if (x < bound) {
+                a[left++] = x;
+            } else {
+                scratch[right++] = x;
+            }
+        }
+        System.arraycopy(scratch, 0, a, left, right);
+        return left;
+    }
+
+    private static int[] createCompressTable() {
+        int size = 1 << LANES;
+        int[] table = new int[size * LANES];
+        for (int bits = 0; bits < size; bits++) {
+            int k = bits * LANES;
+            for (int lane = 0; lane < LANES; lane++) {
+                if ((bits & (1 << lane)) != 0) {
+                    table[k++] = lane;
+                }
+            }
+            // 其余位置的内容不会被使用，放入未选中的通道
+            for (int lane = 0; lane < LANES; lane++) {
+                if ((bits & (1 << lane)) == 0) {
+                    table[k++] = lane;
+                }
+            }
+        }
+        return table;
+    }
+}
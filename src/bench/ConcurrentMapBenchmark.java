@@ -0,0 +1,184 @@
+package bench;
+
+import map.ConcurrentSimpleMap;
+import map.HashSimpleMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * {@link ConcurrentSimpleMap} 的多线程吞吐量测试，线程数从 1 到 64
+ * 对照组：一把全局锁保护的 {@link HashSimpleMap}（即现在的用法，换成散列布局以免线性查找掩盖锁的开销），
+ * java.util.concurrent.ConcurrentHashMap 作为参照
+ * 每个线程在同一个 map 上随机执行 get 和 put，预热后所有线程同时开始、同时结束，统计这段时间内的总操作数
+ * 结果以 CSV 输出，列：map,threads,read_percent,keys,ops,ops_per_sec
+ * 线程数超过 CPU 核数后吞吐量不会再增长，结果只在核数足够的机器上有比较意义
+ *
+ * 参数：
+ * --maps ConcurrentSimpleMap,LockedHashSimpleMap   只测这些 map，默认全部
+ * --threads 1,2,4,8,16,32,64                       线程数
+ * --read-percent 90                                get 占操作的百分比，其余为 put
+ * --keys 65536                                     key 的个数，开始前先放入一半
+ * --warmup-ms 500                                  每组的预热时间
+ * --measure-ms 2000                                每组的测量时间
+ * --out results.csv                                结果文件
+ */
+public class ConcurrentMapBenchmark {
+    private static final int[] DEFAULT_THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final String USAGE = "usage: java bench.ConcurrentMapBenchmark [--maps m1,m2] [--threads t1,t2]"
+            + " [--read-percent p] [--keys n] [--warmup-ms ms] [--measure-ms ms] [--out file.csv]";
+    private static final String HEADER = "map,threads,read_percent,keys,ops,ops_per_sec";
+
+    private static volatile int sink;
+
+    private static final class Implementation {
+        final String name;
+        final Supplier<MapBenchmark.Target> factory;
+
+        Implementation(String name, Supplier<MapBenchmark.Target> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+
+    private static List<Implementation> implementations() {
+        List<Implementation> list = new ArrayList<>();
+        list.add(new Implementation("ConcurrentSimpleMap", () -> {
+            ConcurrentSimpleMap<Integer, Integer> map = new ConcurrentSimpleMap<>();
+            return new MapBenchmark.Target(map::put, map::get, map::remove);
+        }));
+        list.add(new Implementation("LockedHashSimpleMap", () -> {
+            HashSimpleMap<Integer, Integer> map = new HashSimpleMap<>();
+            ReentrantLock lock = new ReentrantLock();
+            return new MapBenchmark.Target(
+                    (k, v) -> {
+                        lock.lock();
+                        try {
+                            map.put(k, v);
+                        } finally {
+                            lock.unlock();
+                        }
+                    },
+                    k -> {
+                        lock.lock();
+                        try {
+                            return map.get(k);
+                        } finally {
+                            lock.unlock();
+                        }
+                    },
+                    k -> {
+                        lock.lock();
+                        try {
+                            return map.remove(k);
+                        } finally {
+                            lock.unlock();
+                        }
+                    });
+        }));
+        list.add(new Implementation("ConcurrentHashMap", () -> {
+            ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+            return new MapBenchmark.Target(map::put, map::get, map::remove);
+        }));
+        return list;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = Options.parse(args, USAGE);
+        int[] threadCounts = options.getInts("threads", DEFAULT_THREADS);
+        Set<String> names = options.has("maps")
+                ? new HashSet<>(Arrays.asList(options.get("maps", "").split(",")))
+                : null;
+        int readPercent = (int) options.getLong("read-percent", 90);
+        int keyCount = (int) options.getLong("keys", 1 << 16);
+        long warmupNanos = options.getLong("warmup-ms", 500) * 1_000_000L;
+        long measureNanos = options.getLong("measure-ms", 2000) * 1_000_000L;
+        if (readPercent < 0 || readPercent > 100 || keyCount <= 0) {
+            System.err.println(USAGE);
+            throw new IllegalArgumentException("illegal read percent " + readPercent + " or key count " + keyCount);
+        }
+        Integer[] keys = MapBenchmark.keys(0, keyCount);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        System.out.println(HEADER);
+        for (Implementation implementation : implementations()) {
+            if (names != null && !names.contains(implementation.name)) {
+                continue;
+            }
+            for (int threads : threadCounts) {
+                MapBenchmark.Target target = implementation.factory.get();
+                for (int i = 0; i < keyCount; i += 2) {
+                    target.put.accept(keys[i], i);
+                }
+                run(target, threads, readPercent, keys, warmupNanos);
+                long ops = run(target, threads, readPercent, keys, measureNanos);
+                String line = String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.0f",
+                        implementation.name, threads, readPercent, keyCount, ops, ops / (measureNanos / 1e9));
+                lines.add(line);
+                System.out.println(line);
+            }
+        }
+        if (options.has("out")) {
+            Files.write(Paths.get(options.get("out", "")), lines);
+        }
+    }
+
+    /**
+     * threads 个线程同时在 target 上执行随机操作 nanos 纳秒
+     *
+     * @return 所有线程完成的操作数之和
+     */
+    private static long run(MapBenchmark.Target target, int threads, int readPercent, Integer[] keys, long nanos)
+            throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] counts = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(id);
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long deadline = System.nanoTime() + nanos;
+                long ops = 0;
+                int hits = 0;
+                // 每 64 次操作检查一次时间
+                do {
+                    for (int i = 0; i < 64; i++) {
+                        Integer key = keys[random.nextInt(keys.length)];
+                        if (random.nextInt(100) < readPercent) {
+                            hits += target.get.apply(key) != null ? 1 : 0;
+                        } else {
+                            target.put.accept(key, i);
+                        }
+                    }
+                    ops += 64;
+                } while (System.nanoTime() < deadline);
+                counts[id] = ops;
+                sink ^= hits;
+            }, "bench-" + t);
+            workers[t].start();
+        }
+        ready.await();
+        start.countDown();
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += counts[t];
+        }
+        return total;
+    }
+}
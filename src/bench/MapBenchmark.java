@@ -0,0 +1,224 @@
+package bench;
+
+import map.HashSimpleMap;
+import map.SimpleMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link SimpleMap}（线性查找）与 {@link HashSimpleMap}（散列）的基准测试，java.util.HashMap 作为参照
+ * 每种 map、每种规模、每种操作先预热再测量，结果以 CSV 输出，列：map,operation,size,calls,ns_per_call,calls_per_sec
+ * key 是互不相同的 Integer，事先装箱，查找顺序随机
+ * 操作：
+ * FILL     从空 map 开始放入 size 个 key，每次 put 记为一次调用
+ * GET      查找存在的 key
+ * MISS     查找不存在的 key
+ * UPDATE   对存在的 key 重新 put
+ * CHURN    删除一个存在的 key 再放回
+ * SimpleMap 填充 size 个元素需要约 size^2/2 次 equals，默认只测不超过 LINEAR_MAX_SIZE 的规模，
+ * 1M 元素的填充要数分钟，需要时用 --linear-max-size 1000000 打开
+ *
+ * 参数：
+ * --maps SimpleMap,HashSimpleMap     只测这些 map，默认全部
+ * --sizes 10,1000,1000000            数据规模
+ * --linear-max-size 65536            SimpleMap 测试的最大规模
+ * --warmup-ms 200                    每组的预热时间
+ * --measure-ms 1000                  每组的测量时间，至少测量一次
+ * --seed 42                          查找顺序的随机种子
+ * --out results.csv                  结果文件
+ */
+public class MapBenchmark {
+    private static final int[] DEFAULT_SIZES = {10, 1000, 1_000_000};
+    private static final int LINEAR_MAX_SIZE = 1 << 16;
+    /**
+     * GET、MISS、UPDATE、CHURN 每次测量执行的调用次数
+     */
+    private static final int BATCH = 4096;
+    private static final String USAGE = "usage: java bench.MapBenchmark [--maps m1,m2] [--sizes n1,n2] [--linear-max-size n]"
+            + " [--warmup-ms ms] [--measure-ms ms] [--seed seed] [--out file.csv]";
+    private static final String HEADER = "map,operation,size,calls,ns_per_call,calls_per_sec";
+
+    /**
+     * 防止查找结果被 JIT 当作无用代码消除
+     */
+    private static volatile int sink;
+
+    public enum Operation {
+        FILL,
+        GET,
+        MISS,
+        UPDATE,
+        CHURN
+    }
+
+    /**
+     * 被测 map 的 put、get、remove
+     */
+    static final class Target {
+        final BiConsumer<Integer, Integer> put;
+        final Function<Integer, Integer> get;
+        final Function<Integer, Integer> remove;
+
+        Target(BiConsumer<Integer, Integer> put, Function<Integer, Integer> get, Function<Integer, Integer> remove) {
+            this.put = put;
+            this.get = get;
+            this.remove = remove;
+        }
+    }
+
+    private static final class Implementation {
+        final String name;
+        final int maxSize;
+        final Supplier<Target> factory;
+
+        Implementation(String name, int maxSize, Supplier<Target> factory) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.factory = factory;
+        }
+    }
+
+    private static List<Implementation> implementations(int linearMaxSize) {
+        List<Implementation> list = new ArrayList<>();
+        list.add(new Implementation("SimpleMap", linearMaxSize, () -> {
+            SimpleMap<Integer, Integer> map = new SimpleMap<>();
+            return new Target(map::put, map::get, map::remove);
+        }));
+        list.add(new Implementation("HashSimpleMap", Integer.MAX_VALUE, () -> {
+            HashSimpleMap<Integer, Integer> map = new HashSimpleMap<>();
+            return new Target(map::put, map::get, map::remove);
+        }));
+        list.add(new Implementation("java.util.HashMap", Integer.MAX_VALUE, () -> {
+            HashMap<Integer, Integer> map = new HashMap<>();
+            return new Target(map::put, map::get, map::remove);
+        }));
+        return list;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args, USAGE);
+        int[] sizes = options.getInts("sizes", DEFAULT_SIZES);
+        Set<String> names = options.has("maps")
+                ? new HashSet<>(Arrays.asList(options.get("maps", "").split(",")))
+                : null;
+        int linearMaxSize = (int) options.getLong("linear-max-size", LINEAR_MAX_SIZE);
+        long warmupNanos = options.getLong("warmup-ms", 200) * 1_000_000L;
+        long measureNanos = options.getLong("measure-ms", 1000) * 1_000_000L;
+        long seed = options.getLong("seed", 42);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        System.out.println(HEADER);
+        for (Implementation implementation : implementations(linearMaxSize)) {
+            if (names != null && !names.contains(implementation.name)) {
+                continue;
+            }
+            for (int size : sizes) {
+                if (size > implementation.maxSize) {
+                    continue;
+                }
+                Integer[] keys = keys(0, size);
+                Integer[] misses = keys(size, size);
+                int[] order = new Random(seed).ints(BATCH, 0, size).toArray();
+                for (Operation operation : Operation.values()) {
+                    String line = run(implementation, operation, keys, misses, order, warmupNanos, measureNanos);
+                    lines.add(line);
+                    System.out.println(line);
+                }
+            }
+        }
+        if (options.has("out")) {
+            Files.write(Paths.get(options.get("out", "")), lines);
+        }
+    }
+
+    /**
+     * 第 from 到 from+n-1 个 key：乘以奇数是 int 上的一一映射，key 互不相同且分散
+     */
+    static Integer[] keys(int from, int n) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = (from + i) * 0x9E3779B9;
+        }
+        return keys;
+    }
+
+    private static String run(Implementation implementation, Operation operation, Integer[] keys, Integer[] misses,
+                              int[] order, long warmupNanos, long measureNanos) {
+        Target target = null;
+        if (operation != Operation.FILL) {
+            target = fill(implementation, keys);
+        }
+        long deadline = System.nanoTime() + warmupNanos;
+        do {
+            execute(implementation, operation, target, keys, misses, order);
+        } while (System.nanoTime() < deadline);
+
+        long calls = 0;
+        long nanos = 0;
+        do {
+            long t = System.nanoTime();
+            calls += execute(implementation, operation, target, keys, misses, order);
+            nanos += System.nanoTime() - t;
+        } while (nanos < measureNanos);
+
+        double nsPerCall = (double) nanos / calls;
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.0f",
+                implementation.name, operation, keys.length, calls, nsPerCall, 1e9 / nsPerCall);
+    }
+
+    private static Target fill(Implementation implementation, Integer[] keys) {
+        Target target = implementation.factory.get();
+        for (Integer key : keys) {
+            target.put.accept(key, key);
+        }
+        return target;
+    }
+
+    /**
+     * 执行一次测量单位
+     *
+     * @return 调用 map 的次数
+     */
+    private static int execute(Implementation implementation, Operation operation, Target target,
+                               Integer[] keys, Integer[] misses, int[] order) {
+        int hits = 0;
+        switch (operation) {
+            case FILL:
+                sink ^= fill(implementation, keys).hashCode();
+                return keys.length;
+            case GET:
+                for (int i : order) {
+                    hits += target.get.apply(keys[i]) != null ? 1 : 0;
+                }
+                break;
+            case MISS:
+                for (int i : order) {
+                    hits += target.get.apply(misses[i]) != null ? 1 : 0;
+                }
+                break;
+            case UPDATE:
+                for (int i : order) {
+                    target.put.accept(keys[i], i);
+                }
+                break;
+            case CHURN:
+                for (int i : order) {
+                    target.remove.apply(keys[i]);
+                    target.put.accept(keys[i], i);
+                }
+                sink ^= hits;
+                return order.length * 2;
+            default:
+                throw new IllegalStateException(operation.name());
+        }
+        sink ^= hits;
+        return order.length;
+    }
+}
@@ -0,0 +1,51 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准测试的命令行参数，格式为 --name value
+ */
+final class Options {
+    private final Map<String, String> values = new HashMap<>();
+
+    private Options() {
+    }
+
+    /**
+     * @param usage 参数格式错误时打印到标准错误的用法说明
+     */
+    static Options parse(String[] args, String usage) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                System.err.println(usage);
+                throw new IllegalArgumentException("illegal argument: " + args[i]);
+            }
+            options.values.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    long getLong(String name, long defaultValue) {
+        return has(name) ? Long.parseLong(values.get(name)) : defaultValue;
+    }
+
+    /**
+     * 逗号分隔的整数列表
+     */
+    int[] getInts(String name, int[] defaultValue) {
+        return has(name)
+                ? Arrays.stream(values.get(name).split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+                : defaultValue;
+    }
+}
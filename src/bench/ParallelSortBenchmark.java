@@ -0,0 +1,130 @@
+package bench;
+
+import sort.MergeSort;
+import sort.QuickSort;
+import sort.SampleSort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 并行排序在不同并行度、不同串行阈值下的基准测试
+ * 每个并行度使用一个独立的 ForkJoinPool，同一组数据先用 QuickSort.introSort 单线程排序作为基准，speedup 是相对它的加速比
+ * 结果以 CSV 输出，列：algorithm,parallelism,threshold,distribution,size,ops,ms_per_op,speedup
+ * 每个并行度还测一次 SampleSort.parallelSort，它没有串行阈值参数，threshold 列为 -
+ * 并行度超过 CPU 核数后不会再加速，默认的并行度列表按本机核数生成
+ *
+ * 参数：
+ * --parallelism 1,2,4,8                    线程池大小，默认 1、2、4... 直到本机核数
+ * --thresholds 1024,8192,65536             MergeSort.parallelSort 的串行阈值
+ * --distributions RANDOM,FEW_UNIQUE        数据分布，见 {@link SortBenchmark.Distribution}，默认 RANDOM
+ * --sizes 1048576,16777216                 数据规模
+ * --warmup-ms 500                          每组的预热时间
+ * --measure-ms 2000                        每组的测量时间，至少测量一次
+ * --seed 42                                生成数据的随机种子
+ * --out results.csv                        结果文件
+ */
+public class ParallelSortBenchmark {
+    private static final int[] DEFAULT_SIZES = {1 << 20, 1 << 24};
+    private static final int[] DEFAULT_THRESHOLDS = {1 << 10, 1 << 13, 1 << 16};
+    private static final String USAGE = "usage: java bench.ParallelSortBenchmark [--parallelism p1,p2] [--thresholds t1,t2]"
+            + " [--distributions d1,d2] [--sizes n1,n2] [--warmup-ms ms] [--measure-ms ms] [--seed seed] [--out file.csv]";
+    private static final String HEADER = "algorithm,parallelism,threshold,distribution,size,ops,ms_per_op,speedup";
+
+    private static volatile int sink;
+
+    /**
+     * 一次排序，pool 为 null 表示单线程
+     */
+    private interface Sorter {
+        void sort(int[] a, ForkJoinPool pool);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args, USAGE);
+        int[] parallelism = options.getInts("parallelism", defaultParallelism());
+        int[] thresholds = options.getInts("thresholds", DEFAULT_THRESHOLDS);
+        int[] sizes = options.getInts("sizes", DEFAULT_SIZES);
+        List<SortBenchmark.Distribution> distributions = new ArrayList<>();
+        for (String name : options.get("distributions", "RANDOM").split(",")) {
+            distributions.add(SortBenchmark.Distribution.valueOf(name.trim().toUpperCase()));
+        }
+        long warmupNanos = options.getLong("warmup-ms", 500) * 1_000_000L;
+        long measureNanos = options.getLong("measure-ms", 2000) * 1_000_000L;
+        long seed = options.getLong("seed", 42);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        System.out.println(HEADER);
+        for (int size : sizes) {
+            for (SortBenchmark.Distribution distribution : distributions) {
+                int[] input = distribution.generate(size, new Random(seed));
+                double[] sequential = measure((a, pool) -> QuickSort.introSort(a), null, input, warmupNanos, measureNanos);
+                double baseline = sequential[1];
+                emit(lines, "QuickSort.introSort", 1, "-", distribution, size, sequential, baseline);
+                for (int p : parallelism) {
+                    ForkJoinPool pool = new ForkJoinPool(p);
+                    try {
+                        for (int threshold : thresholds) {
+                            double[] result = measure((a, fj) -> MergeSort.parallelSort(a, threshold, fj),
+                                    pool, input, warmupNanos, measureNanos);
+                            emit(lines, "MergeSort.parallelSort", p, String.valueOf(threshold), distribution, size, result, baseline);
+                        }
+                        double[] result = measure(SampleSort::parallelSort, pool, input, warmupNanos, measureNanos);
+                        emit(lines, "SampleSort.parallelSort", p, "-", distribution, size, result, baseline);
+                    } finally {
+                        pool.shutdown();
+                    }
+                }
+            }
+        }
+        if (options.has("out")) {
+            Files.write(Paths.get(options.get("out", "")), lines);
+        }
+    }
+
+    private static int[] defaultParallelism() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> list = new ArrayList<>();
+        for (int p = 1; p < cores; p <<= 1) {
+            list.add(p);
+        }
+        list.add(cores);
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return {次数, 每次的毫秒数}
+     */
+    private static double[] measure(Sorter sorter, ForkJoinPool pool, int[] input, long warmupNanos, long measureNanos) {
+        int[] work = new int[input.length];
+        long deadline = System.nanoTime() + warmupNanos;
+        do {
+            System.arraycopy(input, 0, work, 0, input.length);
+            sorter.sort(work, pool);
+        } while (System.nanoTime() < deadline);
+
+        long ops = 0;
+        long nanos = 0;
+        do {
+            System.arraycopy(input, 0, work, 0, input.length);
+            long t = System.nanoTime();
+            sorter.sort(work, pool);
+            nanos += System.nanoTime() - t;
+            ops++;
+            sink ^= work.length == 0 ? 0 : work[0];
+        } while (nanos < measureNanos);
+        return new double[]{ops, nanos / 1e6 / ops};
+    }
+
+    private static void emit(List<String> lines, String algorithm, int parallelism, String threshold,
+                             SortBenchmark.Distribution distribution, int size, double[] result, double baseline) {
+        String line = String.format(Locale.ROOT, "%s,%d,%s,%s,%d,%d,%.3f,%.2f",
+                algorithm, parallelism, threshold, distribution, size, (long) result[0], result[1], baseline / result[1]);
+        lines.add(line);
+        System.out.println(line);
+    }
+}
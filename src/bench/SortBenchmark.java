@@ -0,0 +1,229 @@
+package bench;
+
+import sort.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * sort 包的基准测试，直接用 main 运行，不依赖第三方库
+ * 每个算法在每种数据规模、每种分布上先预热再测量，测量时只计时排序本身，每次排序前把原始数据复制到工作数组
+ * 结果以 CSV 输出到标准输出，指定 --out 时同时写入文件，不同版本的结果可以直接对比
+ * 列：algorithm,distribution,size,ops,ops_per_sec,ns_per_op,ns_per_element,bytes_per_op,alloc_mb_per_sec
+ * 分配字节数通过 com.sun.management.ThreadMXBean 统计当前线程，不支持时为 -1
+ *
+ * 参数：
+ * --algorithms HeapSort,RadixSort   只测这些算法，默认全部
+ * --distributions RANDOM,SORTED     只测这些分布，默认全部
+ * --sizes 16,4096                   数据规模，默认 16,256,4096,65536,1048576,10485760
+ * --warmup-ms 200                   每组的预热时间
+ * --measure-ms 1000                 每组的测量时间，至少测量一次
+ * --seed 42                         生成数据的随机种子
+ * --out results.csv                 结果文件
+ */
+public class SortBenchmark {
+    private static final int[] DEFAULT_SIZES = {16, 256, 4096, 65536, 1 << 20, 10 << 20};
+    /**
+     * O(n^2) 的算法只测不超过该规模的数据
+     */
+    private static final int QUADRATIC_MAX_SIZE = 1 << 16;
+    /**
+     * 原始的快速排序在有序、逆序和重复数据上退化为 O(n^2)，递归深度为 n，更大的数据会栈溢出
+     */
+    private static final int PLAIN_QUICK_SORT_MAX_SIZE = 1 << 12;
+    private static final String USAGE = "usage: java bench.SortBenchmark [--algorithms a,b] [--distributions d1,d2] [--sizes n1,n2]"
+            + " [--warmup-ms ms] [--measure-ms ms] [--seed seed] [--out file.csv]";
+    private static final String HEADER = "algorithm,distribution,size,ops,ops_per_sec,ns_per_op,ns_per_element,bytes_per_op,alloc_mb_per_sec";
+
+    /**
+     * 防止排序结果被 JIT 当作无用代码消除
+     */
+    private static volatile int sink;
+
+    private static final java.lang.management.ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+    /**
+     * 两次连续调用 allocatedBytes() 之间统计到的字节数，即统计本身的分配，从每次测量中减去
+     */
+    private static final long ALLOCATION_OVERHEAD = allocationOverhead();
+
+    public enum Distribution {
+        RANDOM,
+        SORTED,
+        REVERSED,
+        /**
+         * 锯齿：多段递增序列
+         */
+        SAWTOOTH,
+        /**
+         * 只有 16 种不同的值
+         */
+        FEW_UNIQUE,
+        /**
+         * 先递增再递减
+         */
+        ORGAN_PIPE;
+
+        int[] generate(int n, Random random) {
+            int[] a = new int[n];
+            int teeth = Math.max(1, (int) Math.sqrt(n));
+            for (int i = 0; i < n; i++) {
+                switch (this) {
+                    case RANDOM:
+                        a[i] = random.nextInt();
+                        break;
+                    case SORTED:
+                        a[i] = i;
+                        break;
+                    case REVERSED:
+                        a[i] = n - i;
+                        break;
+                    case SAWTOOTH:
+                        a[i] = i % teeth;
+                        break;
+                    case FEW_UNIQUE:
+                        a[i] = random.nextInt(16);
+                        break;
+                    case ORGAN_PIPE:
+                        a[i] = i < n / 2 ? i : n - i;
+                        break;
+                    default:
+                        throw new IllegalStateException(name());
+                }
+            }
+            return a;
+        }
+    }
+
+    private static final class Algorithm {
+        final String name;
+        final int maxSize;
+        final Consumer<int[]> sorter;
+
+        Algorithm(String name, int maxSize, Consumer<int[]> sorter) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.sorter = sorter;
+        }
+    }
+
+    private static List<Algorithm> algorithms(int maxSize) {
+        // 需要辅助空间的算法共用一个缓冲，不计入每次排序的分配
+        int[] buffer = new int[maxSize];
+        List<Algorithm> list = new ArrayList<>();
+        list.add(new Algorithm("BubbleSort.sort1", QUADRATIC_MAX_SIZE, BubbleSort::sort1));
+        list.add(new Algorithm("BubbleSort.sort2", QUADRATIC_MAX_SIZE, BubbleSort::sort2));
+        list.add(new Algorithm("SelectionSort", QUADRATIC_MAX_SIZE, SelectionSort::sort));
+        list.add(new Algorithm("InsertionSort", QUADRATIC_MAX_SIZE, InsertionSort::sort));
+        list.add(new Algorithm("MergeSort", Integer.MAX_VALUE, a -> sink ^= MergeSort.sort(a).length));
+        list.add(new Algorithm("MergeSort.bottomUp", Integer.MAX_VALUE, a -> MergeSort.sort(a, buffer)));
+        list.add(new Algorithm("MergeSort.parallel", Integer.MAX_VALUE, MergeSort::parallelSort));
+        list.add(new Algorithm("NaturalMergeSort", Integer.MAX_VALUE, NaturalMergeSort::sort));
+        list.add(new Algorithm("QuickSort.lomuto", PLAIN_QUICK_SORT_MAX_SIZE, QuickSort::lomutoSort));
+        list.add(new Algorithm("QuickSort.introSort", Integer.MAX_VALUE, QuickSort::introSort));
+        list.add(new Algorithm("HeapSort", Integer.MAX_VALUE, HeapSort::sort));
+        list.add(new Algorithm("RadixSort", Integer.MAX_VALUE, a -> RadixSort.sort(a, buffer)));
+        return list;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(args, USAGE);
+        int[] sizes = options.getInts("sizes", DEFAULT_SIZES);
+        Set<String> names = options.has("algorithms")
+                ? new HashSet<>(Arrays.asList(options.get("algorithms", "").split(",")))
+                : null;
+        List<Distribution> distributions = new ArrayList<>();
+        if (options.has("distributions")) {
+            for (String name : options.get("distributions", "").split(",")) {
+                distributions.add(Distribution.valueOf(name.trim().toUpperCase()));
+            }
+        } else {
+            distributions.addAll(Arrays.asList(Distribution.values()));
+        }
+        long warmupNanos = options.getLong("warmup-ms", 200) * 1_000_000L;
+        long measureNanos = options.getLong("measure-ms", 1000) * 1_000_000L;
+        long seed = options.getLong("seed", 42);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        System.out.println(HEADER);
+        int maxSize = Arrays.stream(sizes).max().orElse(0);
+        for (Algorithm algorithm : algorithms(maxSize)) {
+            if (names != null && !names.contains(algorithm.name)) {
+                continue;
+            }
+            for (int size : sizes) {
+                if (size > algorithm.maxSize) {
+                    continue;
+                }
+                for (Distribution distribution : distributions) {
+                    int[] input = distribution.generate(size, new Random(seed));
+                    String line = run(algorithm, distribution, input, warmupNanos, measureNanos);
+                    lines.add(line);
+                    System.out.println(line);
+                }
+            }
+        }
+        if (options.has("out")) {
+            Path out = Paths.get(options.get("out", ""));
+            Files.write(out, lines);
+        }
+    }
+
+    private static String run(Algorithm algorithm, Distribution distribution, int[] input, long warmupNanos, long measureNanos) {
+        int[] work = new int[input.length];
+        // 预热
+        long deadline = System.nanoTime() + warmupNanos;
+        do {
+            System.arraycopy(input, 0, work, 0, input.length);
+            algorithm.sorter.accept(work);
+        } while (System.nanoTime() < deadline);
+
+        long ops = 0;
+        long sortNanos = 0;
+        long bytes = 0;
+        long start = System.nanoTime();
+        do {
+            System.arraycopy(input, 0, work, 0, input.length);
+            long allocated = allocatedBytes();
+            long t = System.nanoTime();
+            algorithm.sorter.accept(work);
+            sortNanos += System.nanoTime() - t;
+            bytes += allocatedBytes() - allocated - ALLOCATION_OVERHEAD;
+            ops++;
+            sink ^= work.length == 0 ? 0 : work[0];
+        } while (System.nanoTime() - start < measureNanos);
+
+        boolean allocationSupported = allocatedBytes() >= 0;
+        double seconds = sortNanos / 1e9;
+        double nsPerOp = (double) sortNanos / ops;
+        return String.format(Locale.ROOT, "%s,%s,%d,%d,%.3f,%.1f,%.3f,%d,%.3f",
+                algorithm.name, distribution, input.length, ops,
+                ops / seconds, nsPerOp, nsPerOp / Math.max(1, input.length),
+                allocationSupported ? bytes / ops : -1,
+                allocationSupported ? bytes / seconds / (1 << 20) : -1.0);
+    }
+
+    /**
+     * 当前线程累计分配的字节数，不支持时返回 -1
+     */
+    private static long allocatedBytes() {
+        if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREAD_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static long allocationOverhead() {
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long before = allocatedBytes();
+            overhead = Math.min(overhead, allocatedBytes() - before);
+        }
+        return Math.max(0, overhead);
+    }
+}
@@ -0,0 +1,441 @@
+package map;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * 线程安全的散列map，接口与 {@link SimpleMap} 一致，key、value 都不能为null
+ * 分段锁：按 hash 的高位把元素分到若干个段（segment），每个段是一个独立加锁的散列表，
+ * 不同段上的写操作可以并行；读操作不加锁，依靠 volatile 读取桶和节点
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class ConcurrentSimpleMap<K, V> {
+    private final Segment<K, V>[] segments;
+    /**
+     * 用 hash 的高位选择段，低位选择段内的桶
+     */
+    private final int segmentShift;
+    private final int segmentMask;
+    private static final int DEFARLT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    public ConcurrentSimpleMap() {
+        this(DEFARLT_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentSimpleMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param capacity         初始容量
+     * @param loadFactor       每个段的负载因子
+     * @param concurrencyLevel 预计同时写入的线程数，段的数量为不小于它的2的幂
+     */
+    public ConcurrentSimpleMap(int capacity, float loadFactor, int concurrencyLevel) {
+        if (capacity < 0 || !(loadFactor > 0) || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("illegal argument: capacity " + capacity
+                    + " loadFactor " + loadFactor + " concurrencyLevel " + concurrencyLevel);
+        }
+        int shift = 0;
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount < MAX_SEGMENTS) {
+            segmentCount <<= 1;
+            shift++;
+        }
+        segmentShift = 32 - shift;
+        segmentMask = segmentCount - 1;
+        int perSegment = 2;
+        while (perSegment * segmentCount < capacity) {
+            perSegment <<= 1;
+        }
+        segments = newSegments(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(perSegment, loadFactor);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Segment<K, V>[] newSegments(int length) {
+        return (Segment<K, V>[]) new Segment<?, ?>[length];
+    }
+
+    /**
+     * 各段元素数量之和，有并发写入时只是一个近似值
+     */
+    public int size() {
+        long sum = 0;
+        for (Segment<K, V> segment : segments) {
+            sum += segment.count;
+        }
+        return (int) Math.min(sum, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+        for (Segment<K, V> segment : segments) {
+            if (segment.count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(K key, V value) {
+        checkValue(value);
+        int hash = hash(key);
+        segmentFor(hash).put(hash, key, value, false);
+    }
+
+    /**
+     * key 不存在时才放入
+     *
+     * @return 返回已存在的值，不存在时返回 null
+     */
+    public V putIfAbsent(K key, V value) {
+        checkValue(value);
+        int hash = hash(key);
+        return segmentFor(hash).put(hash, key, value, true);
+    }
+
+    /**
+     * 不加锁的查找
+     */
+    public V get(K key) {
+        int hash = hash(key);
+        AtomicReferenceArray<Node<K, V>> tab = segmentFor(hash).table;
+        for (Node<K, V> node = tab.get(hash & (tab.length() - 1)); node != null; node = node.next) {
+            if (node.hash == hash && key.equals(node.key)) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public V remove(K key) {
+        int hash = hash(key);
+        return segmentFor(hash).remove(hash, key);
+    }
+
+    /**
+     * 在段锁内根据旧值计算新值，返回 null 时删除该 key
+     *
+     * @param remapping 参数为 key 和旧值（不存在时为null）
+     * @return 返回新值
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        if (remapping == null) {
+            throw new NullPointerException("remapping function could not be null");
+        }
+        int hash = hash(key);
+        return segmentFor(hash).compute(hash, key, remapping);
+    }
+
+    /**
+     * key 不存在时放入 value，存在时用 remapping 合并旧值和 value，结果为 null 时删除该 key
+     *
+     * @return 返回新值
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        checkValue(value);
+        if (remapping == null) {
+            throw new NullPointerException("remapping function could not be null");
+        }
+        return compute(key, (k, oldVal) -> oldVal == null ? value : remapping.apply(oldVal, value));
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments[(hash >>> segmentShift) & segmentMask];
+    }
+
+    /**
+     * 再散列：分段用高位、段内用低位，需要高低位都分布均匀
+     */
+    private static int hash(Object key) {
+        if (key == null) {
+            throw new NullPointerException("key could not be null");
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static void checkValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException("value could not be null");
+        }
+    }
+
+    /**
+     * node的set集合，遍历是弱一致的：不会抛出并发修改异常，但不一定能看到遍历开始后的修改
+     * @return
+     */
+    public Set<Map.Entry<K, V>> nodeSet() {
+        return new NodeSet();
+    }
+
+    @Override
+    public String toString() {
+        Iterator<Map.Entry<K, V>> iterator = new NodeIterator();
+        if (!iterator.hasNext()) {
+            return "concurrentSimpleMap {}";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("concurrentSimpleMap {");
+        while (iterator.hasNext()) {
+            builder.append(iterator.next());
+            if (iterator.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * 段：一个带锁的散列表，写操作持有锁，读操作通过 volatile 的 table 和节点的 volatile 字段保证可见性
+     * 扩容时复制出新的节点再整体替换 table，正在旧 table 上查找的线程不受影响
+     */
+    private static final class Segment<K, V> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+        private static final int MAXIMUM_SEGMENT_CAPACITY = 1 << 30;
+        volatile AtomicReferenceArray<Node<K, V>> table;
+        volatile int count;
+        final float loadFactor;
+        int threshold;
+
+        Segment(int capacity, float loadFactor) {
+            this.loadFactor = loadFactor;
+            table = new AtomicReferenceArray<>(capacity);
+            threshold = (int) (capacity * loadFactor);
+        }
+
+        V put(int hash, K key, V value, boolean onlyIfAbsent) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Node<K, V> first = tab.get(index);
+                for (Node<K, V> node = first; node != null; node = node.next) {
+                    if (node.hash == hash && key.equals(node.key)) {
+                        V oldVal = node.value;
+                        if (!onlyIfAbsent) {
+                            node.value = value;
+                        }
+                        return oldVal;
+                    }
+                }
+                tab.set(index, new Node<>(hash, key, value, first));
+                if (++count > threshold) {
+                    rehash();
+                }
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        V remove(int hash, Object key) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Node<K, V> pre = null;
+                for (Node<K, V> node = tab.get(index); node != null; pre = node, node = node.next) {
+                    if (node.hash == hash && key.equals(node.key)) {
+                        // 只修改前驱的 next，正在读被删除节点的线程仍能沿着 node.next 继续遍历
+                        if (pre == null) {
+                            tab.set(index, node.next);
+                        } else {
+                            pre.next = node.next;
+                        }
+                        count--;
+                        return node.value;
+                    }
+                }
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        V compute(int hash, K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+            lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = hash & (tab.length() - 1);
+                Node<K, V> pre = null;
+                for (Node<K, V> node = tab.get(index); node != null; pre = node, node = node.next) {
+                    if (node.hash == hash && key.equals(node.key)) {
+                        V newVal = remapping.apply(key, node.value);
+                        if (newVal != null) {
+                            node.value = newVal;
+                        } else {
+                            if (pre == null) {
+                                tab.set(index, node.next);
+                            } else {
+                                pre.next = node.next;
+                            }
+                            count--;
+                        }
+                        return newVal;
+                    }
+                }
+                V newVal = remapping.apply(key, null);
+                if (newVal != null) {
+                    tab.set(index, new Node<>(hash, key, newVal, tab.get(index)));
+                    if (++count > threshold) {
+                        rehash();
+                    }
+                }
+                return newVal;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                table = new AtomicReferenceArray<>(table.length());
+                count = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 持有锁时调用，扩容为两倍，复制节点而不是修改旧节点的 next
+         */
+        private void rehash() {
+            AtomicReferenceArray<Node<K, V>> oldTab = table;
+            int oldCapacity = oldTab.length();
+            if (oldCapacity >= MAXIMUM_SEGMENT_CAPACITY) {
+                threshold = Integer.MAX_VALUE;
+                return;
+            }
+            int newCapacity = oldCapacity << 1;
+            int mask = newCapacity - 1;
+            AtomicReferenceArray<Node<K, V>> newTab = new AtomicReferenceArray<>(newCapacity);
+            for (int i = 0; i < oldCapacity; i++) {
+                for (Node<K, V> node = oldTab.get(i); node != null; node = node.next) {
+                    int index = node.hash & mask;
+                    newTab.set(index, new Node<>(node.hash, node.key, node.value, newTab.get(index)));
+                }
+            }
+            threshold = (int) (newCapacity * loadFactor);
+            table = newTab;
+        }
+    }
+
+    /**
+     * key-value 的存储结构，value 和 next 是 volatile 的，保证不加锁的读操作能看到最新的写入
+     *
+     * @param <K>
+     * @param <V>
+     */
+    private static final class Node<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * 遍历得到的节点是只读的快照
+         */
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private class NodeSet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new NodeIterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentSimpleMap.this.size();
+        }
+    }
+
+    /**
+     * 依次遍历每个段的每个桶
+     */
+    private class NodeIterator implements Iterator<Map.Entry<K, V>> {
+        int segmentIndex;
+        AtomicReferenceArray<Node<K, V>> tab;
+        int index;
+        Node<K, V> next;
+
+        NodeIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (next == null) {
+                if (tab != null && index < tab.length()) {
+                    next = tab.get(index++);
+                } else if (segmentIndex < segments.length) {
+                    tab = segments[segmentIndex++].table;
+                    index = 0;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Node<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> lastReturn = next;
+            next = next.next;
+            advance();
+            return lastReturn;
+        }
+    }
+}
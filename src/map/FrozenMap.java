@@ -0,0 +1,287 @@
+package map;
+
+import java.util.*;
+
+/**
+ * 只读的map，由 {@link SimpleMap#freeze()} 或 {@link HashSimpleMap#freeze()} 生成，key不能为null
+ * 使用最小完美散列（hash and displace）：n 个元素正好放在长度为 n 的 keys、values 数组中，互不冲突
+ * 构建：key 先按 hash 分到约 n/4 个桶里，从大桶开始，为每个桶找一个位移 d，使桶内所有 key 用 d 再散列后落到空位，记录 d
+ * 查找：一次计算得到桶的 d，再散列得到位置，只比较一个 key
+ * hashCode 相同但不相等的 key 无法被散列区分，除第一个外放在溢出数组中，只有命中位置的 key 的 hashCode 相同时才查找溢出数组
+ * 每个元素只占 keys、values 各一个引用加上约一个字节的位移，比 {@link SimpleMap} 每个元素一个 Node 小
+ *
+ * @param <K>
+ * @param <V>
+ */
+public final class FrozenMap<K, V> {
+    /**
+     * 每个桶平均的 key 数
+     */
+    private static final int BUCKET_SIZE = 4;
+    private static final int MAX_DISPLACEMENT = 1 << 24;
+
+    private final K[] keys;
+    private final V[] values;
+    /**
+     * 每个桶的位移
+     */
+    private final int[] displacements;
+    private final K[] overflowKeys;
+    private final V[] overflowValues;
+    private final int size;
+
+    FrozenMap(Collection<Map.Entry<K, V>> entries) {
+        // hashCode 重复的 key 放到溢出数组
+        HashSimpleMap<Integer, Boolean> seen = new HashSimpleMap<>(entries.size());
+        List<Map.Entry<K, V>> primary = new ArrayList<>(entries.size());
+        List<Map.Entry<K, V>> overflow = new ArrayList<>();
+        for (Map.Entry<K, V> entry : entries) {
+            Integer h = entry.getKey().hashCode();
+            if (seen.containsKey(h)) {
+                overflow.add(entry);
+            } else {
+                seen.put(h, Boolean.TRUE);
+                primary.add(entry);
+            }
+        }
+        int n = primary.size();
+        size = n + overflow.size();
+        keys = newArray(n);
+        values = newArray(n);
+        int bucketCount = Math.max(1, n / BUCKET_SIZE);
+        displacements = new int[bucketCount];
+        if (n > 0) {
+            build(primary, bucketCount);
+        }
+        if (overflow.isEmpty()) {
+            overflowKeys = null;
+            overflowValues = null;
+        } else {
+            overflowKeys = newArray(overflow.size());
+            overflowValues = newArray(overflow.size());
+            for (int i = 0; i < overflow.size(); i++) {
+                overflowKeys[i] = overflow.get(i).getKey();
+                overflowValues[i] = overflow.get(i).getValue();
+            }
+        }
+    }
+
+    /**
+     * 泛型数组只能用 Object[] 创建，元素只在构造时写入，类型是安全的
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(int length) {
+        return (T[]) new Object[length];
+    }
+
+    private void build(List<Map.Entry<K, V>> entries, int bucketCount) {
+        int n = entries.size();
+        int[] hashes = new int[n];
+        int[] bucketSizes = new int[bucketCount];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = entries.get(i).getKey().hashCode();
+            bucketSizes[reduce(mix(hashes[i], 0), bucketCount)]++;
+        }
+        // 按桶排列元素：bucketStart[b] 开始的 bucketSizes[b] 个是桶 b 的元素下标
+        int[] bucketStart = new int[bucketCount + 1];
+        for (int b = 0; b < bucketCount; b++) {
+            bucketStart[b + 1] = bucketStart[b] + bucketSizes[b];
+        }
+        int[] order = new int[n];
+        int[] fill = Arrays.copyOf(bucketStart, bucketCount);
+        for (int i = 0; i < n; i++) {
+            order[fill[reduce(mix(hashes[i], 0), bucketCount)]++] = i;
+        }
+        // 桶按大小降序处理，计数排序
+        int maxBucketSize = 0;
+        for (int size : bucketSizes) {
+            maxBucketSize = Math.max(maxBucketSize, size);
+        }
+        int[] sizeStart = new int[maxBucketSize + 2];
+        for (int size : bucketSizes) {
+            sizeStart[maxBucketSize - size + 1]++;
+        }
+        for (int i = 1; i < sizeStart.length; i++) {
+            sizeStart[i] += sizeStart[i - 1];
+        }
+        int[] buckets = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            buckets[sizeStart[maxBucketSize - bucketSizes[b]]++] = b;
+        }
+
+        boolean[] taken = new boolean[n];
+        int[] slots = new int[maxBucketSize];
+        for (int bucket : buckets) {
+            int start = bucketStart[bucket];
+            int count = bucketSizes[bucket];
+            if (count == 0) {
+                break;
+            }
+            int d = 1;
+            while (!tryPlace(hashes, order, start, count, d, taken, slots)) {
+                if (++d >= MAX_DISPLACEMENT) {
+                    throw new IllegalStateException("could not build perfect hash for bucket of size " + count);
+                }
+            }
+            displacements[bucket] = d;
+            for (int i = 0; i < count; i++) {
+                Map.Entry<K, V> entry = entries.get(order[start + i]);
+                keys[slots[i]] = entry.getKey();
+                values[slots[i]] = entry.getValue();
+            }
+        }
+    }
+
+    /**
+     * 用位移 d 再散列桶内的 key，全部落在未占用且互不相同的位置时占用这些位置
+     */
+    private static boolean tryPlace(int[] hashes, int[] order, int start, int count, int d, boolean[] taken, int[] slots) {
+        int n = taken.length;
+        for (int i = 0; i < count; i++) {
+            int slot = reduce(mix(hashes[order[start + i]], d), n);
+            if (taken[slot]) {
+                for (int j = 0; j < i; j++) {
+                    taken[slots[j]] = false;
+                }
+                return false;
+            }
+            taken[slot] = true;
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(K key) {
+        int index = indexOfKey(key);
+        if (index >= 0) {
+            return values[index];
+        }
+        if (index != -1) {
+            return overflowValues[-index - 2];
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        return indexOfKey(key) != -1;
+    }
+
+    /**
+     * @return 在主数组中时返回下标，在溢出数组中时返回 -(下标+2)，未找到时返回 -1
+     */
+    private int indexOfKey(K key) {
+        if (key == null) {
+            throw new NullPointerException("key could not be null");
+        }
+        int n = keys.length;
+        if (n == 0) {
+            return -1;
+        }
+        int h = key.hashCode();
+        int d = displacements[reduce(mix(h, 0), displacements.length)];
+        int slot = reduce(mix(h, d), n);
+        Object k = keys[slot];
+        if (key.equals(k)) {
+            return slot;
+        }
+        if (overflowKeys != null && k.hashCode() == h) {
+            for (int i = 0; i < overflowKeys.length; i++) {
+                if (key.equals(overflowKeys[i])) {
+                    return -i - 2;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 带种子的散列（murmur3 的 fmix32）
+     */
+    private static int mix(int h, int seed) {
+        int x = h ^ (seed * 0x9E3779B9);
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        return x ^ (x >>> 16);
+    }
+
+    /**
+     * 把 32 位 hash 映射到 [0, n)，用乘法和移位代替取模
+     */
+    private static int reduce(int hash, int n) {
+        return (int) (((hash & 0xffffffffL) * n) >>> 32);
+    }
+
+    /**
+     * node的set集合，只读
+     * @return
+     */
+    public Set<Map.Entry<K, V>> nodeSet() {
+        return new NodeSet();
+    }
+
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "frozenMap {}";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("frozenMap {");
+        Iterator<Map.Entry<K, V>> iterator = new NodeIterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, V> entry = iterator.next();
+            builder.append(entry.getKey()).append('=').append(entry.getValue());
+            if (iterator.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    private class NodeSet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new NodeIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 先遍历主数组，再遍历溢出数组
+     */
+    private class NodeIterator implements Iterator<Map.Entry<K, V>> {
+        int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            int i = next++;
+            if (i < keys.length) {
+                return new AbstractMap.SimpleImmutableEntry<>(keys[i], values[i]);
+            }
+            i -= keys.length;
+            return new AbstractMap.SimpleImmutableEntry<>(overflowKeys[i], overflowValues[i]);
+        }
+    }
+}
@@ -0,0 +1,727 @@
+package map;
+
+import tree.RBTree;
+
+import java.util.*;
+
+/**
+ * 使用散列表的map实现，接口与 {@link SimpleMap} 一致，key不能为null
+ * 数组长度为2的幂，key的hash值定位到桶，同一个桶中的节点用单链表连接（拉链法）
+ * 元素数量超过 容量*负载因子 时数组扩容为两倍，put、get、remove 的期望时间为常数
+ * 一个桶中的节点数达到树化阈值时，如果 key 可以比较（同一个实现了 Comparable 的类），桶改用 {@link RBTree} 存放，
+ * 按 hash、再按 compareTo 排序，冲突严重时最坏查找时间从 O(n) 降为 O(log n)；节点数降到阈值的 3/4 以下时退回链表
+ * 可选渐进式扩容：扩容时旧数组的桶分摊到之后的操作中迁移，避免单次 put 复制整个数组造成的停顿
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class HashSimpleMap<K, V> {
+    /**
+     * 散列桶数组，长度为2的幂
+     */
+    private Node<K, V>[] table;
+    private int size;
+    /**
+     * 负载因子：元素数量与桶数量的比值上限
+     */
+    private final float loadFactor;
+    /**
+     * 扩容阈值 = 容量 * 负载因子
+     */
+    private int threshold;
+    private static final int DEFARLT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final int DEFAULT_TREEIFY_THRESHOLD = 8;
+    /**
+     * 数组长度小于该值时优先扩容而不是树化
+     */
+    private static final int MIN_TREEIFY_CAPACITY = 64;
+    /**
+     * 桶中节点数达到该值时树化，Integer.MAX_VALUE 表示不树化
+     */
+    private final int treeifyThreshold;
+    private final int untreeifyThreshold;
+    /**
+     * 是否使用渐进式扩容
+     */
+    private final boolean incrementalResize;
+    /**
+     * 渐进式扩容中的旧数组，没有在扩容时为 null；下标小于 rehashIndex 的桶已经迁移到 table
+     */
+    private Node<K, V>[] oldTable;
+    private int rehashIndex;
+    /**
+     * 渐进式扩容每次操作迁移的桶数
+     */
+    private static final int REHASH_BUCKETS = 4;
+    /**
+     * 运行统计，未开启时为null
+     */
+    private MapStats stats;
+    /**
+     * 最近一次 {@link #findNode} 的探测次数，由 {@link #getNode} 累加后记为一次查找
+     */
+    private int probes;
+
+    public HashSimpleMap() {
+        this(DEFARLT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public HashSimpleMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param capacity   初始容量，会被调整为不小于它的2的幂
+     * @param loadFactor 负载因子，越小冲突越少但占用内存越多
+     */
+    public HashSimpleMap(int capacity, float loadFactor) {
+        this(capacity, loadFactor, DEFAULT_TREEIFY_THRESHOLD);
+    }
+
+    /**
+     * @param capacity         初始容量，会被调整为不小于它的2的幂
+     * @param loadFactor       负载因子，越小冲突越少但占用内存越多
+     * @param treeifyThreshold 桶中节点数达到该值时改用红黑树，不小于2，Integer.MAX_VALUE 表示不树化
+     */
+    public HashSimpleMap(int capacity, float loadFactor, int treeifyThreshold) {
+        this(capacity, loadFactor, treeifyThreshold, false);
+    }
+
+    /**
+     * @param capacity          初始容量，会被调整为不小于它的2的幂
+     * @param loadFactor        负载因子，越小冲突越少但占用内存越多
+     * @param treeifyThreshold  桶中节点数达到该值时改用红黑树，不小于2，Integer.MAX_VALUE 表示不树化
+     * @param incrementalResize 为 true 时扩容分摊到之后的操作中逐步完成
+     */
+    public HashSimpleMap(int capacity, float loadFactor, int treeifyThreshold, boolean incrementalResize) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity could not be negative: " + capacity);
+        }
+        if (!(loadFactor > 0)) {
+            throw new IllegalArgumentException("illegal load factor: " + loadFactor);
+        }
+        if (treeifyThreshold < 2) {
+            throw new IllegalArgumentException("treeify threshold must be at least 2: " + treeifyThreshold);
+        }
+        this.loadFactor = loadFactor;
+        this.treeifyThreshold = treeifyThreshold;
+        this.incrementalResize = incrementalResize;
+        this.untreeifyThreshold = treeifyThreshold - (treeifyThreshold >> 2) - 1;
+        int tableSize = tableSizeFor(capacity);
+        table = newTable(tableSize);
+        threshold = (int) Math.min(tableSize * loadFactor, Integer.MAX_VALUE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void put(K key, V value) {
+        int hash = hash(key);
+        rehashStep();
+        Node<K, V> node = getNode(hash, key);
+        if (node != null) {
+            node.value = value;
+            if (stats != null) {
+                stats.recordPut();
+            }
+            return;
+        }
+        // 渐进式扩容期间新元素只放入新数组
+        boolean tooLong = linkNode(table, hash & (table.length - 1), new Node<>(hash, key, value, null));
+        if (++size > threshold || tooLong) {
+            resize();
+        }
+        if (stats != null) {
+            stats.recordPut();
+            stats.updateLoad(size, table.length);
+        }
+    }
+
+    public V get(K key) {
+        int hash = hash(key);
+        rehashStep();
+        if (stats != null) {
+            stats.recordGet();
+        }
+        Node<K, V> node = getNode(hash, key);
+        if (node != null) {
+            return node.value;
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        int hash = hash(key);
+        return getNode(hash, key) != null;
+    }
+
+    public V remove(K key) {
+        int hash = hash(key);
+        rehashStep();
+        Node<K, V> node = null;
+        if (oldTable != null) {
+            int oldIndex = hash & (oldTable.length - 1);
+            if (oldIndex >= rehashIndex) {
+                node = unlinkNode(oldTable, oldIndex, hash, key);
+            }
+        }
+        if (node == null) {
+            node = unlinkNode(table, hash & (table.length - 1), hash, key);
+        }
+        if (stats != null) {
+            stats.recordRemove();
+        }
+        if (node == null) {
+            return null;
+        }
+        size--;
+        if (stats != null) {
+            stats.updateLoad(size, table.length);
+        }
+        return node.value;
+    }
+
+    /**
+     * 开启运行统计
+     *
+     * @return 返回统计对象，已开启时返回原来的对象
+     */
+    public MapStats enableStats() {
+        if (stats == null) {
+            stats = new MapStats();
+            stats.updateLoad(size, table.length);
+        }
+        return stats;
+    }
+
+    public void disableStats() {
+        stats = null;
+    }
+
+    /**
+     * @return 返回统计对象，未开启时返回null
+     */
+    public MapStats stats() {
+        return stats;
+    }
+
+    public void clear() {
+        Arrays.fill(table, null);
+        oldTable = null;
+        size = 0;
+    }
+
+    /**
+     * 查找key所在的节点，渐进式扩容期间旧数组中还没迁移的桶也要查找
+     *
+     * @return 返回key所在的节点，未找到时返回 null
+     */
+    private Node<K, V> getNode(int hash, K key) {
+        int probeLength = 0;
+        Node<K, V> node = null;
+        if (oldTable != null) {
+            int oldIndex = hash & (oldTable.length - 1);
+            if (oldIndex >= rehashIndex) {
+                node = findNode(oldTable[oldIndex], hash, key);
+                probeLength = probes;
+            }
+        }
+        if (node == null) {
+            node = findNode(table[hash & (table.length - 1)], hash, key);
+            probeLength += probes;
+        }
+        if (stats != null) {
+            // 扩容期间两个数组的探测次数合计为一次查找
+            stats.recordProbe(probeLength);
+        }
+        return node;
+    }
+
+    /**
+     * 在一个桶（链表或红黑树）中查找，探测次数保存在 probes 中
+     */
+    private Node<K, V> findNode(Node<K, V> first, int hash, K key) {
+        if (first instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) first;
+            // 红黑树按树高计算
+            probes = 32 - Integer.numberOfLeadingZeros(bin.size());
+            return bin.find(hash, key);
+        }
+        int probe = 0;
+        for (Node<K, V> node = first; node != null; node = node.next) {
+            probe++;
+            if (node.hash == hash && key.equals(node.key)) {
+                probes = probe;
+                return node;
+            }
+        }
+        probes = probe;
+        return null;
+    }
+
+    /**
+     * 把一个新节点放入桶中，链表达到阈值时树化
+     *
+     * @return 链表达到阈值、但数组长度小于 MIN_TREEIFY_CAPACITY 没有树化时返回 true，调用者应扩容
+     */
+    private boolean linkNode(Node<K, V>[] tab, int index, Node<K, V> node) {
+        Node<K, V> first = tab[index];
+        if (first instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) first;
+            if (bin.accepts(node.key)) {
+                bin.add(node);
+            } else {
+                // 不可比较的 key 混入，退回链表
+                node.next = bin.untreeify();
+                tab[index] = node;
+            }
+            return false;
+        }
+        node.next = first;
+        tab[index] = node;
+        if (treeifyThreshold == Integer.MAX_VALUE) {
+            return false;
+        }
+        int binCount = 0;
+        for (Node<K, V> n = node; n != null && binCount < treeifyThreshold; n = n.next) {
+            binCount++;
+        }
+        if (binCount < treeifyThreshold) {
+            return false;
+        }
+        if (tab.length < MIN_TREEIFY_CAPACITY) {
+            return true;
+        }
+        treeifyBin(tab, index);
+        return false;
+    }
+
+    /**
+     * 从桶中删除key所在的节点，红黑树节点数过少时退回链表
+     *
+     * @return 返回被删除的节点，未找到时返回 null
+     */
+    private Node<K, V> unlinkNode(Node<K, V>[] tab, int index, int hash, K key) {
+        if (tab[index] instanceof TreeBin) {
+            TreeBin<K, V> bin = (TreeBin<K, V>) tab[index];
+            Node<K, V> node = bin.find(hash, key);
+            if (node != null) {
+                bin.remove(node);
+                if (bin.size() <= untreeifyThreshold) {
+                    tab[index] = bin.untreeify();
+                }
+            }
+            return node;
+        }
+        Node<K, V> pre = null;
+        for (Node<K, V> node = tab[index]; node != null; pre = node, node = node.next) {
+            if (node.hash == hash && key.equals(node.key)) {
+                if (pre == null) {
+                    tab[index] = node.next;
+                } else {
+                    pre.next = node.next;
+                }
+                node.next = null;
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 扩容为两倍
+     * 一次性扩容：由于长度是2的幂，原桶 i 中的节点只会分到新数组的 i 或 i+oldCap 两个桶中
+     * 渐进式扩容：只分配新数组，旧数组中的桶在之后的 put、get、remove 中每次迁移几个（类似 Redis 的 rehash），
+     * 任何一次操作都不需要复制整个数组
+     */
+    private void resize() {
+        long start = stats != null ? System.nanoTime() : 0;
+        resize0();
+        if (stats != null) {
+            stats.recordResize(System.nanoTime() - start);
+        }
+    }
+
+    private void resize0() {
+        if (oldTable != null) {
+            // 上一次渐进式扩容还没完成，先全部迁移完
+            while (oldTable != null) {
+                rehashStep();
+            }
+        }
+        int oldCapacity = table.length;
+        if (oldCapacity >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+        int newCapacity = oldCapacity << 1;
+        Node<K, V>[] newTable = newTable(newCapacity);
+        threshold = (int) Math.min(newCapacity * loadFactor, Integer.MAX_VALUE);
+        if (incrementalResize) {
+            oldTable = table;
+            rehashIndex = 0;
+            table = newTable;
+            return;
+        }
+        for (int i = 0; i < oldCapacity; i++) {
+            Node<K, V> lowHead = null, lowTail = null, highHead = null, highTail = null;
+            int lowCount = 0, highCount = 0;
+            Node<K, V> next;
+            Node<K, V> first = table[i];
+            if (first instanceof TreeBin) {
+                first = ((TreeBin<K, V>) first).untreeify();
+            }
+            for (Node<K, V> node = first; node != null; node = next) {
+                next = node.next;
+                node.next = null;
+                if ((node.hash & oldCapacity) == 0) {
+                    if (lowTail == null) {
+                        lowHead = node;
+                    } else {
+                        lowTail.next = node;
+                    }
+                    lowTail = node;
+                    lowCount++;
+                } else {
+                    if (highTail == null) {
+                        highHead = node;
+                    } else {
+                        highTail.next = node;
+                    }
+                    highTail = node;
+                    highCount++;
+                }
+            }
+            newTable[i] = lowHead;
+            newTable[i + oldCapacity] = highHead;
+            // 拆分后仍然很长的桶重新树化，数组太小时保持链表，等之后的 put 继续扩容
+            if (newCapacity >= MIN_TREEIFY_CAPACITY) {
+                if (lowCount >= treeifyThreshold) {
+                    treeifyBin(newTable, i);
+                }
+                if (highCount >= treeifyThreshold) {
+                    treeifyBin(newTable, i + oldCapacity);
+                }
+            }
+        }
+        table = newTable;
+    }
+
+    /**
+     * 渐进式扩容的一步：从 rehashIndex 开始迁移最多 REHASH_BUCKETS 个非空桶，最多访问 REHASH_BUCKETS*10 个空桶
+     */
+    private void rehashStep() {
+        if (oldTable == null) {
+            return;
+        }
+        int moved = 0;
+        int emptyVisits = REHASH_BUCKETS * 10;
+        while (moved < REHASH_BUCKETS && rehashIndex < oldTable.length) {
+            Node<K, V> first = oldTable[rehashIndex];
+            if (first == null) {
+                rehashIndex++;
+                if (--emptyVisits == 0) {
+                    break;
+                }
+                continue;
+            }
+            oldTable[rehashIndex] = null;
+            rehashIndex++;
+            if (first instanceof TreeBin) {
+                first = ((TreeBin<K, V>) first).untreeify();
+            }
+            Node<K, V> next;
+            for (Node<K, V> node = first; node != null; node = next) {
+                next = node.next;
+                node.next = null;
+                // 迁移中不能再次扩容，过长的链表留到下一次 put 时处理
+                linkNode(table, node.hash & (table.length - 1), node);
+            }
+            moved++;
+        }
+        if (rehashIndex >= oldTable.length) {
+            oldTable = null;
+        }
+    }
+
+    /**
+     * 把链表桶转为红黑树桶，key 不能互相比较时保持链表
+     */
+    private void treeifyBin(Node<K, V>[] tab, int index) {
+        Node<K, V> first = tab[index];
+        Class<?> keyClass = comparableClassFor(first.key);
+        if (keyClass == null) {
+            return;
+        }
+        for (Node<K, V> node = first.next; node != null; node = node.next) {
+            if (node.key.getClass() != keyClass) {
+                return;
+            }
+        }
+        TreeBin<K, V> bin = new TreeBin<>(keyClass);
+        Node<K, V> next;
+        for (Node<K, V> node = first; node != null; node = next) {
+            next = node.next;
+            node.next = null;
+            bin.add(node);
+        }
+        tab[index] = bin;
+    }
+
+    /**
+     * key 的类实现了 Comparable 时返回该类，否则返回 null
+     */
+    private static Class<?> comparableClassFor(Object key) {
+        return key instanceof Comparable ? key.getClass() : null;
+    }
+
+    /**
+     * 计算key的hash，高16位异或到低16位，让数组长度较小时高位也参与定位
+     */
+    private static int hash(Object key) {
+        if (key == null) {
+            throw new NullPointerException("key could not be null");
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] newTable(int length) {
+        return (Node<K, V>[]) new Node<?, ?>[length];
+    }
+
+    /**
+     * 返回不小于 capacity 的最小的2的幂
+     */
+    private static int tableSizeFor(int capacity) {
+        int n = 1;
+        while (n < capacity && n < MAXIMUM_CAPACITY) {
+            n <<= 1;
+        }
+        return n;
+    }
+
+    /**
+     * 生成当前内容的只读快照，之后对本map的修改不影响快照
+     *
+     * @return 基于最小完美散列的只读map
+     */
+    public FrozenMap<K, V> freeze() {
+        return new FrozenMap<>(nodeSet());
+    }
+
+    /**
+     * node的set集合
+     * @return
+     */
+    public Set<Map.Entry<K, V>> nodeSet() {
+        return new NodeSet();
+    }
+
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "hashSimpleMap {}";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("hashSimpleMap {");
+        Iterator<Map.Entry<K, V>> iterator = new NodeIterator();
+        while (iterator.hasNext()) {
+            builder.append(iterator.next());
+            if (iterator.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * key-value 的存储结构，next 指向同一个桶中的下一个节点
+     *
+     * @param <K>
+     * @param <V>
+     */
+    private static class Node<K, V> implements Map.Entry<K, V> {
+        final int hash;
+        final K key;
+        V value;
+        Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldVal = this.value;
+            this.value = value;
+            return oldVal;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * 树化后的桶，放在数组中代替链表的头节点，自身不存放键值对
+     * 节点按 hash 排序，hash 相同时按 key 的 compareTo 排序，要求同一个桶中的 key 都是 keyClass 类型
+     * compareTo 为 0 的 key 不一定 equals，查找时在比较相等的节点中再用 equals 筛选，删除时按节点对象本身删除
+     *
+     * @param <K>
+     * @param <V>
+     */
+    private static final class TreeBin<K, V> extends Node<K, V> {
+        final Class<?> keyClass;
+        final RBTree<Node<K, V>> tree = new RBTree<>(TreeBin::compareNodes);
+
+        TreeBin(Class<?> keyClass) {
+            super(0, null, null, null);
+            this.keyClass = keyClass;
+        }
+
+        boolean accepts(Object key) {
+            return key.getClass() == keyClass;
+        }
+
+        Node<K, V> find(int hash, K key) {
+            if (!accepts(key)) {
+                return null;
+            }
+            return tree.find(new Node<>(hash, key, null, null), node -> key.equals(node.key));
+        }
+
+        void add(Node<K, V> node) {
+            tree.add(node);
+        }
+
+        void remove(Node<K, V> node) {
+            tree.removeExact(node);
+        }
+
+        int size() {
+            return tree.size();
+        }
+
+        /**
+         * 按树中的顺序把节点重新连成链表
+         *
+         * @return 链表的头节点
+         */
+        Node<K, V> untreeify() {
+            Node<K, V> head = null, tail = null;
+            for (Node<K, V> node : tree) {
+                node.next = null;
+                if (tail == null) {
+                    head = node;
+                } else {
+                    tail.next = node;
+                }
+                tail = node;
+            }
+            return head;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static int compareNodes(Node<?, ?> n1, Node<?, ?> n2) {
+            if (n1.hash != n2.hash) {
+                return Integer.compare(n1.hash, n2.hash);
+            }
+            return ((Comparable<Object>) n1.key).compareTo(n2.key);
+        }
+    }
+
+    private class NodeSet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new NodeIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 按桶的顺序遍历所有节点
+     */
+    private class NodeIterator implements Iterator<Map.Entry<K, V>> {
+        Node<K, V> next;
+        /**
+         * 先遍历旧数组中还没迁移的桶，再遍历 table
+         */
+        Node<K, V>[] tab = oldTable != null ? oldTable : table;
+        int index;
+        /**
+         * 正在遍历的红黑树桶
+         */
+        Iterator<Node<K, V>> treeIterator;
+
+        NodeIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (next == null) {
+                if (treeIterator != null && treeIterator.hasNext()) {
+                    next = treeIterator.next();
+                    return;
+                }
+                treeIterator = null;
+                if (index >= tab.length) {
+                    if (tab == table) {
+                        return;
+                    }
+                    tab = table;
+                    index = 0;
+                    continue;
+                }
+                next = tab[index++];
+                if (next instanceof TreeBin) {
+                    treeIterator = ((TreeBin<K, V>) next).tree.iterator();
+                    next = null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Node<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> lastReturn = next;
+            next = treeIterator == null ? next.next : null;
+            advance();
+            return lastReturn;
+        }
+    }
+
+}
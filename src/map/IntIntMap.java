@@ -0,0 +1,265 @@
+package map;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * key、value 都是 int 的map，接口与 {@link SimpleMap} 一致
+ * 使用开放寻址（线性探测），键和值分别存放在两个 int 数组中，不装箱也不为每个元素创建节点
+ * 0 作为空槽的标记，key 为 0 的键值对单独存放
+ * get 未找到时返回 0，需要区分时使用 {@link #containsKey(int)} 或 {@link #getOrDefault(int, int)}
+ */
+public class IntIntMap {
+    private int[] keys;
+    private int[] values;
+    private int size;
+    /**
+     * key 为 0 的元素是否存在及其值
+     */
+    private boolean hasZeroKey;
+    private int zeroValue;
+    private final float loadFactor;
+    private int threshold;
+    private static final int DEFARLT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    public IntIntMap() {
+        this(DEFARLT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntIntMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param capacity   预计存放的元素数量
+     * @param loadFactor 负载因子，线性探测下建议不超过 0.75
+     */
+    public IntIntMap(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity could not be negative: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHash.tableSizeFor(capacity, loadFactor));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = PrimitiveHash.mix(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOfKey(key);
+        return index == -1 ? defaultValue : values[index];
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : indexOfKey(key) != -1;
+    }
+
+    /**
+     * @return 返回被删除的值，未找到时返回 0
+     */
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return 0;
+            }
+            hasZeroKey = false;
+            size--;
+            int oldVal = zeroValue;
+            zeroValue = 0;
+            return oldVal;
+        }
+        int index = indexOfKey(key);
+        if (index == -1) {
+            return 0;
+        }
+        int oldVal = values[index];
+        shiftKeys(index);
+        size--;
+        return oldVal;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * 查找key在数组中的索引
+     *
+     * @param key 非 0 的键
+     * @return 返回key的索引，未找到时返回 -1
+     */
+    private int indexOfKey(int key) {
+        int mask = keys.length - 1;
+        int i = PrimitiveHash.mix(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 删除 gap 处的元素：把后面探测链上可以前移的元素往前挪，保证查找不会在空槽处提前中断
+     */
+    private void shiftKeys(int gap) {
+        int mask = keys.length - 1;
+        int i = (gap + 1) & mask;
+        while (keys[i] != 0) {
+            int ideal = PrimitiveHash.mix(keys[i]) & mask;
+            // gap 落在 [ideal, i] 的环形区间内时，i 处的元素可以挪到 gap
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        threshold = (int) (capacity * loadFactor);
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int key = oldKeys[j];
+            if (key != 0) {
+                int i = PrimitiveHash.mix(key) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * 返回遍历用的游标，遍历过程中不创建对象
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "intIntMap {}";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("intIntMap {");
+        Cursor cursor = cursor();
+        boolean first = true;
+        while (cursor.advance()) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(cursor.key()).append('=').append(cursor.value());
+            first = false;
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * 遍历游标：advance() 返回 true 后通过 key()、value() 读取当前元素
+     */
+    public class Cursor {
+        private boolean zeroVisited;
+        private int index;
+        private int key;
+        private int value;
+        private boolean valid;
+
+        public boolean advance() {
+            if (!zeroVisited) {
+                zeroVisited = true;
+                if (hasZeroKey) {
+                    key = 0;
+                    value = zeroValue;
+                    return valid = true;
+                }
+            }
+            while (index < keys.length) {
+                int i = index++;
+                if (keys[i] != 0) {
+                    key = keys[i];
+                    value = values[i];
+                    return valid = true;
+                }
+            }
+            return valid = false;
+        }
+
+        public int key() {
+            checkValid();
+            return key;
+        }
+
+        public int value() {
+            checkValid();
+            return value;
+        }
+
+        private void checkValid() {
+            if (!valid) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+}
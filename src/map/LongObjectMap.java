@@ -0,0 +1,264 @@
+package map;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * key 是 long 的map，接口与 {@link SimpleMap} 一致
+ * 使用开放寻址（线性探测），键存放在 long 数组、值存放在 Object 数组中，key 不装箱也不为每个元素创建节点
+ * 0 作为空槽的标记，key 为 0 的键值对单独存放；value 不能为null
+ *
+ * @param <V>
+ */
+public class LongObjectMap<V> {
+    private long[] keys;
+    private V[] values;
+    private int size;
+    /**
+     * key 为 0 的元素的值，null 表示不存在
+     */
+    private V zeroValue;
+    private final float loadFactor;
+    private int threshold;
+    private static final int DEFARLT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    public LongObjectMap() {
+        this(DEFARLT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param capacity   预计存放的元素数量
+     * @param loadFactor 负载因子，线性探测下建议不超过 0.75
+     */
+    public LongObjectMap(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity could not be negative: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHash.tableSizeFor(capacity, loadFactor));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value could not be null");
+        }
+        if (key == 0) {
+            if (zeroValue == null) {
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = PrimitiveHash.mix(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int index = indexOfKey(key);
+        return index == -1 ? null : values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? zeroValue != null : indexOfKey(key) != -1;
+    }
+
+    public V remove(long key) {
+        if (key == 0) {
+            V oldVal = zeroValue;
+            if (oldVal != null) {
+                zeroValue = null;
+                size--;
+            }
+            return oldVal;
+        }
+        int index = indexOfKey(key);
+        if (index == -1) {
+            return null;
+        }
+        V oldVal = values[index];
+        shiftKeys(index);
+        size--;
+        return oldVal;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * 查找key在数组中的索引
+     *
+     * @param key 非 0 的键
+     * @return 返回key的索引，未找到时返回 -1
+     */
+    private int indexOfKey(long key) {
+        int mask = keys.length - 1;
+        int i = PrimitiveHash.mix(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 删除 gap 处的元素：把后面探测链上可以前移的元素往前挪，保证查找不会在空槽处提前中断
+     */
+    private void shiftKeys(int gap) {
+        int mask = keys.length - 1;
+        int i = (gap + 1) & mask;
+        while (keys[i] != 0) {
+            int ideal = PrimitiveHash.mix(keys[i]) & mask;
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = newArray(capacity);
+        threshold = (int) (capacity * loadFactor);
+    }
+
+    /**
+     * 值数组只会写入 V，用 Object[] 创建后转换，读取时不再需要强制转换
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(int length) {
+        return (T[]) new Object[length];
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != 0) {
+                int i = PrimitiveHash.mix(key) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * 返回遍历用的游标，遍历过程中不创建对象
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "longObjectMap {}";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("longObjectMap {");
+        Cursor cursor = cursor();
+        boolean first = true;
+        while (cursor.advance()) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(cursor.key()).append('=').append(cursor.value());
+            first = false;
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * 遍历游标：advance() 返回 true 后通过 key()、value() 读取当前元素
+     */
+    public class Cursor {
+        private boolean zeroVisited;
+        private int index;
+        private long key;
+        private V value;
+
+        public boolean advance() {
+            if (!zeroVisited) {
+                zeroVisited = true;
+                if (zeroValue != null) {
+                    key = 0;
+                    value = zeroValue;
+                    return true;
+                }
+            }
+            while (index < keys.length) {
+                int i = index++;
+                if (keys[i] != 0) {
+                    key = keys[i];
+                    value = values[i];
+                    return true;
+                }
+            }
+            value = null;
+            return false;
+        }
+
+        public long key() {
+            checkValid();
+            return key;
+        }
+
+        public V value() {
+            checkValid();
+            return value;
+        }
+
+        private void checkValid() {
+            if (value == null) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+}
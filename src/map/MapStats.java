@@ -0,0 +1,166 @@
+package map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * map 的运行统计：get、put、remove 次数，查找时的扫描/探测长度，扩容次数和耗时，当前负载
+ * 通过 map 的 enableStats() 开启，未开启时 map 中只有一次 null 判断
+ * 不是线程安全的，和所属的 map 一样只能在一个线程中使用
+ */
+public final class MapStats {
+    private long getCount;
+    private long putCount;
+    private long removeCount;
+    /**
+     * 查找次数、比较过的节点总数、单次最多比较的节点数
+     */
+    private long lookupCount;
+    private long probeTotal;
+    private int maxProbeLength;
+    private long resizeCount;
+    private long resizeNanos;
+    private int size;
+    private int capacity;
+
+    MapStats() {
+    }
+
+    void recordGet() {
+        getCount++;
+    }
+
+    void recordPut() {
+        putCount++;
+    }
+
+    void recordRemove() {
+        removeCount++;
+    }
+
+    void recordProbe(int length) {
+        lookupCount++;
+        probeTotal += length;
+        if (length > maxProbeLength) {
+            maxProbeLength = length;
+        }
+    }
+
+    void recordResize(long nanos) {
+        resizeCount++;
+        resizeNanos += nanos;
+    }
+
+    void updateLoad(int size, int capacity) {
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    public long getCount() {
+        return getCount;
+    }
+
+    public long putCount() {
+        return putCount;
+    }
+
+    public long removeCount() {
+        return removeCount;
+    }
+
+    /**
+     * @return 平均每次查找比较的节点数
+     */
+    public double averageProbeLength() {
+        return lookupCount == 0 ? 0 : (double) probeTotal / lookupCount;
+    }
+
+    public int maxProbeLength() {
+        return maxProbeLength;
+    }
+
+    public long resizeCount() {
+        return resizeCount;
+    }
+
+    public long resizeNanos() {
+        return resizeNanos;
+    }
+
+    /**
+     * @return 当前元素数量与容量的比值
+     */
+    public double loadFactor() {
+        return capacity == 0 ? 0 : (double) size / capacity;
+    }
+
+    public void reset() {
+        getCount = putCount = removeCount = 0;
+        lookupCount = probeTotal = 0;
+        maxProbeLength = 0;
+        resizeCount = resizeNanos = 0;
+    }
+
+    /**
+     * 把当前的统计值作为 JFR 事件提交，录制中没有开启该事件时什么都不做
+     *
+     * @param mapName 用于区分不同 map 实例的名字
+     */
+    public void commitEvent(String mapName) {
+        StatsEvent event = new StatsEvent();
+        if (event.shouldCommit()) {
+            event.mapName = mapName;
+            event.getCount = getCount;
+            event.putCount = putCount;
+            event.removeCount = removeCount;
+            event.averageProbeLength = averageProbeLength();
+            event.maxProbeLength = maxProbeLength;
+            event.resizeCount = resizeCount;
+            event.resizeNanos = resizeNanos;
+            event.size = size;
+            event.capacity = capacity;
+            event.loadFactor = loadFactor();
+            event.commit();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "mapStats {get=" + getCount + ", put=" + putCount + ", remove=" + removeCount
+                + ", avgProbe=" + String.format("%.2f", averageProbeLength()) + ", maxProbe=" + maxProbeLength
+                + ", resize=" + resizeCount + ", resizeMs=" + resizeNanos / 1_000_000
+                + ", loadFactor=" + String.format("%.2f", loadFactor()) + "}";
+    }
+
+    @Name("map.MapStats")
+    @Label("Map Statistics")
+    @Category("Data Structure")
+    @Description("map 的操作次数、探测长度和扩容统计")
+    static final class StatsEvent extends Event {
+        @Label("Map Name")
+        String mapName;
+        @Label("Get Count")
+        long getCount;
+        @Label("Put Count")
+        long putCount;
+        @Label("Remove Count")
+        long removeCount;
+        @Label("Average Probe Length")
+        double averageProbeLength;
+        @Label("Max Probe Length")
+        int maxProbeLength;
+        @Label("Resize Count")
+        long resizeCount;
+        @Label("Resize Time (ns)")
+        long resizeNanos;
+        @Label("Size")
+        int size;
+        @Label("Capacity")
+        int capacity;
+        @Label("Load Factor")
+        double loadFactor;
+    }
+}
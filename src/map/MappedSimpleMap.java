@@ -0,0 +1,463 @@
+package map;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 只读的map快照：把 {@link SimpleMap} 或 {@link HashSimpleMap} 写成一个二进制文件，之后通过 FileChannel.map 映射打开，
+ * 查找直接在映射的页面上进行，打开时不需要反序列化全部数据，启动时间与数据量无关
+ * 文件格式（大端）：
+ * 头部 32 字节：魔数、版本、元素个数、散列表槽数、保留
+ * 散列表：槽数个 long，记录所在的文件偏移，0 表示空槽，开放寻址（线性探测），hash 根据 key 序列化后的字节计算
+ * 记录：int key 长度、int value 长度、key 字节、value 字节；记录不会跨越 1GB 的映射段，不够时填充0到下一段
+ * 线程安全：打开后只读；{@link #close()} 等正在进行的读操作结束后才解除映射
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class MappedSimpleMap<K, V> implements AutoCloseable {
+    private static final int MAGIC = 0x534D4150;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_HEADER_SIZE = 8;
+    /**
+     * 映射段大小，单个 MappedByteBuffer 不能超过 2GB，大文件分段映射
+     */
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    /**
+     * state 的最高位：已关闭
+     */
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final MappedByteBuffer[] segments;
+    /**
+     * 低位是正在读取映射页面的操作数，最高位为 CLOSED
+     * 解除映射后再访问页面会让 JVM 崩溃，所以关闭后由最后一个结束的读操作解除映射
+     */
+    private final AtomicInteger state = new AtomicInteger();
+    private final long size;
+    private final long tableSize;
+
+    private MappedSimpleMap(Path path, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException {
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("not a simpleMap snapshot: " + path);
+            }
+            int count = (int) ((fileSize + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, fileSize - start));
+            }
+        }
+        ByteBuffer header = segments[0];
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            unmap();
+            throw new IOException("not a simpleMap snapshot or unsupported version: " + path);
+        }
+        size = header.getLong(8);
+        tableSize = header.getLong(16);
+    }
+
+    /**
+     * 映射打开快照文件，只读取头部
+     */
+    public static <K, V> MappedSimpleMap<K, V> open(Path path, Serializer<K> keySerializer,
+                                                    Serializer<V> valueSerializer) throws IOException {
+        if (keySerializer == null || valueSerializer == null) {
+            throw new NullPointerException("serializer could not be null");
+        }
+        return new MappedSimpleMap<>(path, keySerializer, valueSerializer);
+    }
+
+    public static <K, V> void write(SimpleMap<K, V> map, Path path, Serializer<? super K> keySerializer,
+                                    Serializer<? super V> valueSerializer) throws IOException {
+        write(map.nodeSet(), path, keySerializer, valueSerializer);
+    }
+
+    public static <K, V> void write(HashSimpleMap<K, V> map, Path path, Serializer<? super K> keySerializer,
+                                    Serializer<? super V> valueSerializer) throws IOException {
+        write(map.nodeSet(), path, keySerializer, valueSerializer);
+    }
+
+    /**
+     * 先写到临时文件再替换目标文件，写入中途失败不会留下半个快照，临时文件也会被删除
+     */
+    private static <K, V> void write(Set<Map.Entry<K, V>> entries, Path path, Serializer<? super K> keySerializer,
+                                     Serializer<? super V> valueSerializer) throws IOException {
+        int size = entries.size();
+        int tableSize = 2;
+        while (tableSize < 2L * size + 1) {
+            if (tableSize >= MAX_TABLE_SIZE) {
+                throw new IllegalArgumentException("too many entries: " + size);
+            }
+            tableSize <<= 1;
+        }
+        long[] table = new long[tableSize];
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            writeFile(entries, tmp, table, keySerializer, valueSerializer);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // 移动成功后临时文件已不存在
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static <K, V> void writeFile(Set<Map.Entry<K, V>> entries, Path tmp, long[] table,
+                                         Serializer<? super K> keySerializer,
+                                         Serializer<? super V> valueSerializer) throws IOException {
+        int size = entries.size();
+        int tableSize = table.length;
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = HEADER_SIZE + (long) tableSize * Long.BYTES;
+            channel.position(position);
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            for (Map.Entry<K, V> entry : entries) {
+                byte[] key = keySerializer.toBytes(entry.getKey());
+                byte[] value = valueSerializer.toBytes(entry.getValue());
+                long recordSize = RECORD_HEADER_SIZE + (long) key.length + value.length;
+                if (recordSize > SEGMENT_SIZE) {
+                    throw new IllegalArgumentException("entry too large: " + recordSize + " bytes");
+                }
+                // 记录不能跨越映射段
+                if ((position & SEGMENT_MASK) + recordSize > SEGMENT_SIZE) {
+                    long padding = SEGMENT_SIZE - (position & SEGMENT_MASK);
+                    for (long i = 0; i < padding; i++) {
+                        put(channel, buffer, (byte) 0);
+                    }
+                    position += padding;
+                }
+                int slot = (int) (hash(key) & (tableSize - 1));
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & (tableSize - 1);
+                }
+                table[slot] = position;
+                ensureRemaining(channel, buffer, RECORD_HEADER_SIZE);
+                buffer.putInt(key.length).putInt(value.length);
+                put(channel, buffer, key);
+                put(channel, buffer, value);
+                position += recordSize;
+            }
+            flush(channel, buffer);
+
+            channel.position(0);
+            ensureRemaining(channel, buffer, HEADER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(tableSize).putLong(0);
+            for (long offset : table) {
+                ensureRemaining(channel, buffer, Long.BYTES);
+                buffer.putLong(offset);
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(K key) {
+        acquire();
+        try {
+            long record = findRecord(key);
+            if (record == 0) {
+                return null;
+            }
+            ByteBuffer segment = segment(record);
+            int offset = (int) (record & SEGMENT_MASK);
+            int keyLength = segment.getInt(offset);
+            int valueLength = segment.getInt(offset + 4);
+            return valueSerializer.read(segment, offset + RECORD_HEADER_SIZE + keyLength, valueLength);
+        } finally {
+            release();
+        }
+    }
+
+    public boolean containsKey(K key) {
+        acquire();
+        try {
+            return findRecord(key) != 0;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 关闭后不能再使用该map；有其它线程正在读取时，等它们结束后才解除映射
+     */
+    @Override
+    public void close() {
+        int previous = state.getAndUpdate(s -> s | CLOSED);
+        if (previous == 0) {
+            unmap();
+        }
+    }
+
+    /**
+     * 开始一次读操作，已关闭时抛出异常
+     */
+    private void acquire() {
+        while (true) {
+            int s = state.get();
+            if ((s & CLOSED) != 0) {
+                throw new IllegalStateException("mappedSimpleMap is closed");
+            }
+            if (state.compareAndSet(s, s + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 结束一次读操作，已关闭并且是最后一个读操作时解除映射
+     */
+    private void release() {
+        if (state.decrementAndGet() == CLOSED) {
+            unmap();
+        }
+    }
+
+    private void unmap() {
+        for (MappedByteBuffer segment : segments) {
+            DirectMemory.free(segment);
+        }
+    }
+
+    /**
+     * 查找key所在记录的文件偏移
+     *
+     * @return 未找到时返回 0
+     */
+    private long findRecord(K key) {
+        if (key == null) {
+            throw new NullPointerException("key could not be null");
+        }
+        byte[] bytes = keySerializer.toBytes(key);
+        long mask = tableSize - 1;
+        long slot = hash(bytes) & mask;
+        while (true) {
+            long record = readLong(HEADER_SIZE + slot * Long.BYTES);
+            if (record == 0 || keyEquals(record, bytes)) {
+                return record;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(long record, byte[] key) {
+        ByteBuffer segment = segment(record);
+        int offset = (int) (record & SEGMENT_MASK);
+        if (segment.getInt(offset) != key.length) {
+            return false;
+        }
+        offset += RECORD_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (segment.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long readLong(long position) {
+        return segment(position).getLong((int) (position & SEGMENT_MASK));
+    }
+
+    private ByteBuffer segment(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)];
+    }
+
+    /**
+     * FNV-1a 散列，快照文件中的布局依赖它，不能修改
+     */
+    private static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 29);
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, byte b) throws IOException {
+        ensureRemaining(channel, buffer, 1);
+        buffer.put(b);
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        int written = 0;
+        while (written < bytes.length) {
+            ensureRemaining(channel, buffer, 1);
+            int length = Math.min(buffer.remaining(), bytes.length - written);
+            buffer.put(bytes, written, length);
+            written += length;
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * node的set集合，遍历时解码出 key、value
+     * @return
+     */
+    public Set<Map.Entry<K, V>> nodeSet() {
+        return new NodeSet();
+    }
+
+    @Override
+    public String toString() {
+        return "mappedSimpleMap {size=" + size + "}";
+    }
+
+    /**
+     * key、value 与字节之间的转换，read 在 buffer 的绝对位置读取，不能修改 buffer 的 position，
+     * 返回的对象不能引用 buffer 本身（如 slice），map 关闭后映射会被解除
+     *
+     * @param <T>
+     */
+    public interface Serializer<T> {
+        byte[] toBytes(T value);
+
+        T read(ByteBuffer buffer, int offset, int length);
+
+        Serializer<String> STRING = new Serializer<String>() {
+            @Override
+            public byte[] toBytes(String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String read(ByteBuffer buffer, int offset, int length) {
+                byte[] bytes = new byte[length];
+                buffer.get(offset, bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+
+        Serializer<Integer> INT = new Serializer<Integer>() {
+            @Override
+            public byte[] toBytes(Integer value) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset, int length) {
+                return buffer.getInt(offset);
+            }
+        };
+
+        Serializer<Long> LONG = new Serializer<Long>() {
+            @Override
+            public byte[] toBytes(Long value) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+            }
+
+            @Override
+            public Long read(ByteBuffer buffer, int offset, int length) {
+                return buffer.getLong(offset);
+            }
+        };
+    }
+
+    private class NodeSet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new NodeIterator();
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 按散列表槽的顺序遍历
+     */
+    private class NodeIterator implements Iterator<Map.Entry<K, V>> {
+        long slot = -1;
+        long record;
+
+        NodeIterator() {
+            acquire();
+            try {
+                advance();
+            } finally {
+                release();
+            }
+        }
+
+        private void advance() {
+            record = 0;
+            while (record == 0 && ++slot < tableSize) {
+                record = readLong(HEADER_SIZE + slot * Long.BYTES);
+            }
+        }
+
+        private Map.Entry<K, V> read() {
+            ByteBuffer segment = segment(record);
+            int offset = (int) (record & SEGMENT_MASK);
+            int keyLength = segment.getInt(offset);
+            int valueLength = segment.getInt(offset + 4);
+            K key = keySerializer.read(segment, offset + RECORD_HEADER_SIZE, keyLength);
+            V value = valueSerializer.read(segment, offset + RECORD_HEADER_SIZE + keyLength, valueLength);
+            advance();
+            return new AbstractMap.SimpleImmutableEntry<>(key, value);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return record != 0;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (record == 0) {
+                throw new NoSuchElementException();
+            }
+            acquire();
+            try {
+                return read();
+            } finally {
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package map;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * value 是 long 的map，接口与 {@link SimpleMap} 一致，key不能为null
+ * 使用开放寻址（线性探测），键存放在 Object 数组、值存放在 long 数组中，value 不装箱也不为每个元素创建节点
+ * get 未找到时返回 0，需要区分时使用 {@link #containsKey(Object)} 或 {@link #getOrDefault(Object, long)}
+ *
+ * @param <K>
+ */
+public class ObjectLongMap<K> {
+    /**
+     * null 表示空槽
+     */
+    private K[] keys;
+    private long[] values;
+    private int size;
+    private final float loadFactor;
+    private int threshold;
+    private static final int DEFARLT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    public ObjectLongMap() {
+        this(DEFARLT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public ObjectLongMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param capacity   预计存放的元素数量
+     * @param loadFactor 负载因子，线性探测下建议不超过 0.75
+     */
+    public ObjectLongMap(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity could not be negative: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(PrimitiveHash.tableSizeFor(capacity, loadFactor));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void put(K key, long value) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (key.equals(keys[i])) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public long get(K key) {
+        return getOrDefault(key, 0);
+    }
+
+    public long getOrDefault(K key, long defaultValue) {
+        int index = indexOfKey(key);
+        return index == -1 ? defaultValue : values[index];
+    }
+
+    public boolean containsKey(K key) {
+        return indexOfKey(key) != -1;
+    }
+
+    /**
+     * @return 返回被删除的值，未找到时返回 0
+     */
+    public long remove(K key) {
+        int index = indexOfKey(key);
+        if (index == -1) {
+            return 0;
+        }
+        long oldVal = values[index];
+        shiftKeys(index);
+        size--;
+        return oldVal;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    /**
+     * 查找key在数组中的索引
+     *
+     * @param key 键
+     * @return 返回key的索引，未找到时返回 -1
+     */
+    private int indexOfKey(K key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+            if (key.equals(keys[i])) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 删除 gap 处的元素：把后面探测链上可以前移的元素往前挪，保证查找不会在空槽处提前中断
+     */
+    private void shiftKeys(int gap) {
+        int mask = keys.length - 1;
+        int i = (gap + 1) & mask;
+        while (keys[i] != null) {
+            int ideal = hash(keys[i]) & mask;
+            if (((i - ideal) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = null;
+        values[gap] = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = newArray(capacity);
+        values = new long[capacity];
+        threshold = (int) (capacity * loadFactor);
+    }
+
+    /**
+     * 创建 K[]：实际是 Object[]，只保存 put 进来的 key
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(int length) {
+        return (T[]) new Object[length];
+    }
+
+    private void rehash(int newCapacity) {
+        K[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            K key = oldKeys[j];
+            if (key != null) {
+                int i = hash(key) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(Object key) {
+        if (key == null) {
+            throw new NullPointerException("key could not be null");
+        }
+        return PrimitiveHash.mix(key.hashCode());
+    }
+
+    /**
+     * 返回遍历用的游标，遍历过程中不创建对象
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    @Override
+    public String toString() {
+        if (size == 0) {
+            return "objectLongMap {}";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("objectLongMap {");
+        Cursor cursor = cursor();
+        boolean first = true;
+        while (cursor.advance()) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(cursor.key()).append('=').append(cursor.value());
+            first = false;
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * 遍历游标：advance() 返回 true 后通过 key()、value() 读取当前元素
+     */
+    public class Cursor {
+        private int index;
+        private K key;
+        private long value;
+
+        public boolean advance() {
+            while (index < keys.length) {
+                int i = index++;
+                if (keys[i] != null) {
+                    key = keys[i];
+                    value = values[i];
+                    return true;
+                }
+            }
+            key = null;
+            return false;
+        }
+
+        public K key() {
+            checkValid();
+            return key;
+        }
+
+        public long value() {
+            checkValid();
+            return value;
+        }
+
+        private void checkValid() {
+            if (key == null) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+}
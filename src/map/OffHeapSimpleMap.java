@@ -0,0 +1,425 @@
+package map;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * 数据存放在堆外内存中的map，接口与 {@link SimpleMap} 一致，key不能为null
+ * key、value 由使用者提供的 {@link Codec} 编码为固定长度的字节，和一个状态字节一起存放在直接内存（direct ByteBuffer）的槽中，
+ * 垃圾回收不会扫描这些数据，每个元素的额外开销只有一个字节加上空槽
+ * 使用开放寻址（线性探测），hash 根据 key 编码后的字节计算，两个 key 编码后的字节相同即认为相等
+ * 不是线程安全的；使用完需要调用 {@link #close()} 立即释放内存
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class OffHeapSimpleMap<K, V> implements AutoCloseable {
+    /**
+     * 单块内存的最大字节数，容量较大时分成多块
+     */
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+    private static final int DEFARLT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private static final byte EMPTY = 0;
+    private static final byte FULL = 1;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final int keySize;
+    /**
+     * 每个槽的字节数：状态 + key + value
+     */
+    private final int slotSize;
+    private final float loadFactor;
+    /**
+     * 编码待查找的 key 用的临时缓冲，避免每次查找分配
+     */
+    private final ByteBuffer keyBuffer;
+    /**
+     * 先把 value 编码到这里，编码成功后再写入槽中，编码抛出异常时槽不会被改动
+     */
+    private final ByteBuffer valueBuffer;
+
+    private ByteBuffer[] chunks;
+    /**
+     * 槽的数量，2的幂
+     */
+    private long capacity;
+    private int chunkShift;
+    private long size;
+    private long threshold;
+
+    public OffHeapSimpleMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, DEFARLT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param keyCodec   key 的编码器
+     * @param valueCodec value 的编码器
+     * @param capacity   预计存放的元素数量
+     * @param loadFactor 负载因子
+     */
+    public OffHeapSimpleMap(Codec<K> keyCodec, Codec<V> valueCodec, long capacity, float loadFactor) {
+        if (keyCodec == null || valueCodec == null) {
+            throw new NullPointerException("codec could not be null");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity could not be negative: " + capacity);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("illegal load factor: " + loadFactor);
+        }
+        if (keyCodec.size() <= 0 || valueCodec.size() < 0) {
+            throw new IllegalArgumentException("illegal codec size: key " + keyCodec.size() + " value " + valueCodec.size());
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.keySize = keyCodec.size();
+        this.slotSize = 1 + keySize + valueCodec.size();
+        if (slotSize > MAX_CHUNK_BYTES) {
+            throw new IllegalArgumentException("entry too large: " + slotSize);
+        }
+        this.loadFactor = loadFactor;
+        this.keyBuffer = ByteBuffer.allocate(keySize);
+        this.valueBuffer = ByteBuffer.allocate(valueCodec.size());
+        long n = 2;
+        while (n < Math.ceil(capacity / (double) loadFactor) + 1) {
+            n <<= 1;
+        }
+        allocate(n);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void put(K key, V value) {
+        long slot = findSlot(key);
+        valueCodec.write(valueBuffer, 0, value);
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        copy(valueBuffer, 0, chunk, offset + 1 + keySize, valueBuffer.capacity());
+        if (chunk.get(offset) == EMPTY) {
+            // key、value 都写好后才标记为已占用
+            copy(keyBuffer, 0, chunk, offset + 1, keySize);
+            chunk.put(offset, FULL);
+            if (++size > threshold) {
+                rehash(capacity << 1);
+            }
+        }
+    }
+
+    public V get(K key) {
+        long slot = findSlot(key);
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        if (chunk.get(offset) == EMPTY) {
+            return null;
+        }
+        return valueCodec.read(chunk, offset + 1 + keySize);
+    }
+
+    public boolean containsKey(K key) {
+        long slot = findSlot(key);
+        return chunk(slot).get(offset(slot)) != EMPTY;
+    }
+
+    public V remove(K key) {
+        long slot = findSlot(key);
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        if (chunk.get(offset) == EMPTY) {
+            return null;
+        }
+        V oldVal = valueCodec.read(chunk, offset + 1 + keySize);
+        shiftKeys(slot);
+        size--;
+        return oldVal;
+    }
+
+    public void clear() {
+        checkOpen();
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += slotSize) {
+                chunk.put(offset, EMPTY);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * 立即释放堆外内存，之后不能再使用该map
+     */
+    @Override
+    public void close() {
+        if (chunks != null) {
+            for (ByteBuffer chunk : chunks) {
+                DirectMemory.free(chunk);
+            }
+            chunks = null;
+            size = 0;
+        }
+    }
+
+    /**
+     * 把 key 编码到 keyBuffer 中，然后查找其所在的槽
+     *
+     * @return 返回 key 所在的槽，未找到时返回探测链结束处的空槽
+     */
+    private long findSlot(K key) {
+        checkOpen();
+        if (key == null) {
+            throw new NullPointerException("key could not be null");
+        }
+        keyCodec.write(keyBuffer, 0, key);
+        long mask = capacity - 1;
+        long slot = hash(keyBuffer, 0, keySize) & mask;
+        while (true) {
+            ByteBuffer chunk = chunk(slot);
+            int offset = offset(slot);
+            if (chunk.get(offset) == EMPTY || equalBytes(chunk, offset + 1, keyBuffer, 0, keySize)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * 删除 gap 处的元素：把后面探测链上可以前移的元素往前挪，保证查找不会在空槽处提前中断
+     */
+    private void shiftKeys(long gap) {
+        long mask = capacity - 1;
+        long slot = (gap + 1) & mask;
+        while (chunk(slot).get(offset(slot)) != EMPTY) {
+            long ideal = hash(chunk(slot), offset(slot) + 1, keySize) & mask;
+            if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                copy(chunk(slot), offset(slot), chunk(gap), offset(gap), slotSize);
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        chunk(gap).put(offset(gap), EMPTY);
+    }
+
+    private void allocate(long newCapacity) {
+        int slotsPerChunk = Integer.highestOneBit(MAX_CHUNK_BYTES / slotSize);
+        if (newCapacity < slotsPerChunk) {
+            slotsPerChunk = (int) newCapacity;
+        }
+        chunkShift = Integer.numberOfTrailingZeros(slotsPerChunk);
+        int chunkCount = (int) (newCapacity >>> chunkShift);
+        chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            // 新分配的直接内存内容全为0，即全部是空槽
+            chunks[i] = ByteBuffer.allocateDirect(slotsPerChunk * slotSize);
+        }
+        capacity = newCapacity;
+        threshold = (long) (newCapacity * loadFactor);
+    }
+
+    /**
+     * 扩容：按槽复制原始字节，不经过编解码
+     */
+    private void rehash(long newCapacity) {
+        ByteBuffer[] oldChunks = chunks;
+        allocate(newCapacity);
+        long mask = newCapacity - 1;
+        for (ByteBuffer oldChunk : oldChunks) {
+            for (int offset = 0; offset < oldChunk.capacity(); offset += slotSize) {
+                if (oldChunk.get(offset) != EMPTY) {
+                    long slot = hash(oldChunk, offset + 1, keySize) & mask;
+                    while (chunk(slot).get(offset(slot)) != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    copy(oldChunk, offset, chunk(slot), offset(slot), slotSize);
+                }
+            }
+            DirectMemory.free(oldChunk);
+        }
+    }
+
+    private ByteBuffer chunk(long slot) {
+        return chunks[(int) (slot >>> chunkShift)];
+    }
+
+    private int offset(long slot) {
+        return (int) (slot & ((1L << chunkShift) - 1)) * slotSize;
+    }
+
+    private void checkOpen() {
+        if (chunks == null) {
+            throw new IllegalStateException("offHeapSimpleMap is closed");
+        }
+    }
+
+    /**
+     * 对字节做 FNV-1a 散列，再打散高低位
+     */
+    private static long hash(ByteBuffer buffer, int offset, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            h ^= buffer.get(offset + i) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 29);
+    }
+
+    private static boolean equalBytes(ByteBuffer a, int aOffset, ByteBuffer b, int bOffset, int length) {
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            if (a.getLong(aOffset + i) != b.getLong(bOffset + i)) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (a.get(aOffset + i) != b.get(bOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void copy(ByteBuffer src, int srcOffset, ByteBuffer dst, int dstOffset, int length) {
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            dst.putLong(dstOffset + i, src.getLong(srcOffset + i));
+        }
+        for (; i < length; i++) {
+            dst.put(dstOffset + i, src.get(srcOffset + i));
+        }
+    }
+
+    /**
+     * node的set集合，遍历时从堆外内存解码出 key、value
+     * @return
+     */
+    public Set<Map.Entry<K, V>> nodeSet() {
+        checkOpen();
+        return new NodeSet();
+    }
+
+    @Override
+    public String toString() {
+        if (chunks == null) {
+            return "offHeapSimpleMap (closed)";
+        }
+        if (size == 0) {
+            return "offHeapSimpleMap {}";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("offHeapSimpleMap {");
+        Iterator<Map.Entry<K, V>> iterator = new NodeIterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, V> entry = iterator.next();
+            builder.append(entry.getKey()).append('=').append(entry.getValue());
+            if (iterator.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+
+    /**
+     * 固定长度的编解码器，在 buffer 的绝对位置 offset 处读写，不能修改 buffer 的 position
+     *
+     * @param <T>
+     */
+    public interface Codec<T> {
+        /**
+         * @return 编码后的字节数
+         */
+        int size();
+
+        void write(ByteBuffer buffer, int offset, T value);
+
+        T read(ByteBuffer buffer, int offset);
+
+        Codec<Integer> INT = new Codec<Integer>() {
+            @Override
+            public int size() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, Integer value) {
+                buffer.putInt(offset, value);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+                return buffer.getInt(offset);
+            }
+        };
+
+        Codec<Long> LONG = new Codec<Long>() {
+            @Override
+            public int size() {
+                return Long.BYTES;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int offset, Long value) {
+                buffer.putLong(offset, value);
+            }
+
+            @Override
+            public Long read(ByteBuffer buffer, int offset) {
+                return buffer.getLong(offset);
+            }
+        };
+    }
+
+    private class NodeSet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new NodeIterator();
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 按槽的顺序遍历，返回解码后的只读键值对
+     */
+    private class NodeIterator implements Iterator<Map.Entry<K, V>> {
+        long next = -1;
+
+        NodeIterator() {
+            advance();
+        }
+
+        private void advance() {
+            checkOpen();
+            do {
+                next++;
+            } while (next < capacity && chunk(next).get(offset(next)) == EMPTY);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < capacity;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (next >= capacity) {
+                throw new NoSuchElementException();
+            }
+            ByteBuffer chunk = chunk(next);
+            int offset = offset(next);
+            Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(
+                    keyCodec.read(chunk, offset + 1), valueCodec.read(chunk, offset + 1 + keySize));
+            advance();
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package map;
+
+/**
+ * 基本类型map共用的散列工具
+ */
+final class PrimitiveHash {
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private PrimitiveHash() {
+    }
+
+    /**
+     * 乘以黄金分割常数打散低位规律的 key（如连续的 id），再把高位异或到低位
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * 返回能以给定负载因子容纳 expected 个元素的最小的2的幂
+     */
+    static int tableSizeFor(int expected, float loadFactor) {
+        long min = (long) Math.ceil(expected / (double) loadFactor) + 1;
+        int n = 2;
+        while (n < min && n < MAXIMUM_CAPACITY) {
+            n <<= 1;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,422 @@
+package map;
+
+/**
+ * 有容量上限的缓存，key、value 都不能为null
+ * 用 {@link HashSimpleMap} 按 key 找到节点，节点同时挂在双向链表上记录访问顺序，
+ * 节点自己持有前后指针，移动和删除都是 O(1)，不需要像 list.DoubleLinkedList.remove(E) 那样遍历查找
+ * 淘汰策略：
+ * LRU：淘汰最久没有访问的元素
+ * W_TINY_LFU：新元素先进入占容量 1% 的窗口（LRU），窗口满后进入主区的试用段，
+ * 主区满时用频率草图（count-min sketch）比较试用段的候选者和受害者，访问频率更高的留下，
+ * 试用段中再次被访问的元素晋升到受保护段（占主区 80%），能抵抗一次性的扫描冲掉热点数据
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class SimpleCache<K, V> {
+    public enum Policy {
+        LRU, W_TINY_LFU
+    }
+
+    /**
+     * 计算元素的权重，默认每个元素权重为1，即按个数限制
+     */
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /**
+     * 元素因超出容量被淘汰时回调，显式 remove 不回调
+     */
+    public interface EvictionListener<K, V> {
+        void onEviction(K key, V value);
+    }
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final HashSimpleMap<K, Node<K, V>> index = new HashSimpleMap<>();
+    private final Policy policy;
+    private final long maximumWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final EvictionListener<? super K, ? super V> listener;
+    private final FrequencySketch sketch;
+
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedOrder = new AccessOrder<>();
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private long windowWeight;
+    private long protectedWeight;
+    private long weightedSize;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public SimpleCache(long maximumSize) {
+        this(maximumSize, Policy.LRU);
+    }
+
+    public SimpleCache(long maximumSize, Policy policy) {
+        this(maximumSize, policy, null, null);
+    }
+
+    /**
+     * @param maximumWeight 权重之和的上限，未指定 weigher 时即元素个数上限
+     * @param policy        淘汰策略
+     * @param weigher       权重计算，可以为null
+     * @param listener      淘汰监听器，可以为null
+     */
+    public SimpleCache(long maximumWeight, Policy policy, Weigher<? super K, ? super V> weigher,
+                       EvictionListener<? super K, ? super V> listener) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive: " + maximumWeight);
+        }
+        if (policy == null) {
+            throw new NullPointerException("policy could not be null");
+        }
+        this.maximumWeight = maximumWeight;
+        this.policy = policy;
+        this.weigher = weigher;
+        this.listener = listener;
+        if (policy == Policy.LRU) {
+            // LRU 相当于窗口占满全部容量
+            windowMaximum = maximumWeight;
+            protectedMaximum = 0;
+            sketch = null;
+        } else {
+            windowMaximum = Math.max(1, maximumWeight / 100);
+            protectedMaximum = (long) ((maximumWeight - windowMaximum) * 0.8);
+            sketch = new FrequencySketch(maximumWeight);
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = index.get(key);
+        if (sketch != null) {
+            sketch.increment(key.hashCode());
+        }
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value could not be null");
+        }
+        int weight = weigh(key, value);
+        Node<K, V> node = index.get(key);
+        if (sketch != null) {
+            sketch.increment(key.hashCode());
+        }
+        if (node != null) {
+            node.value = value;
+            int delta = weight - node.weight;
+            node.weight = weight;
+            weightedSize += delta;
+            if (node.queue == WINDOW) {
+                windowWeight += delta;
+            } else if (node.queue == PROTECTED) {
+                protectedWeight += delta;
+            }
+            onAccess(node);
+        } else {
+            node = new Node<>(key, value, weight);
+            index.put(key, node);
+            window.addLast(node);
+            windowWeight += weight;
+            weightedSize += weight;
+        }
+        evict();
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = index.remove(key);
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node.value;
+    }
+
+    public void clear() {
+        index.clear();
+        window.clear();
+        probation.clear();
+        protectedOrder.clear();
+        windowWeight = protectedWeight = weightedSize = 0;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return 命中率，还没有访问时返回 1
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    private int weigh(K key, V value) {
+        if (weigher == null) {
+            return 1;
+        }
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight could not be negative: " + weight);
+        }
+        return weight;
+    }
+
+    /**
+     * 命中后调整节点位置：窗口、受保护段内移到尾部，试用段的节点晋升到受保护段
+     */
+    private void onAccess(Node<K, V> node) {
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROTECTED) {
+            protectedOrder.moveToLast(node);
+        } else {
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedOrder.addLast(node);
+            protectedWeight += node.weight;
+            // 受保护段超出上限时，最久没访问的降级回试用段
+            while (protectedWeight > protectedMaximum && protectedOrder.first != null) {
+                Node<K, V> demoted = protectedOrder.first;
+                protectedOrder.remove(demoted);
+                protectedWeight -= demoted.weight;
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        }
+    }
+
+    private void evict() {
+        if (policy == Policy.LRU) {
+            while (weightedSize > maximumWeight && window.first != null) {
+                evictNode(window.first);
+            }
+            return;
+        }
+        // 窗口溢出的元素进入试用段尾部，成为候选者
+        while (windowWeight > windowMaximum && window.first != null) {
+            Node<K, V> node = window.first;
+            window.remove(node);
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+        while (weightedSize > maximumWeight) {
+            Node<K, V> victim = probation.first;
+            Node<K, V> candidate = probation.last;
+            if (victim == null) {
+                // 试用段为空时依次从受保护段、窗口淘汰
+                evictNode(protectedOrder.first != null ? protectedOrder.first : window.first);
+            } else if (victim == candidate) {
+                evictNode(victim);
+            } else if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+                evictNode(victim);
+            } else {
+                evictNode(candidate);
+            }
+        }
+    }
+
+    private void evictNode(Node<K, V> node) {
+        index.remove(node.key);
+        unlink(node);
+        evictionCount++;
+        if (listener != null) {
+            listener.onEviction(node.key, node.value);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        weightedSize -= node.weight;
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else {
+            protectedOrder.remove(node);
+            protectedWeight -= node.weight;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "simpleCache {policy=" + policy + ", size=" + size() + ", weightedSize=" + weightedSize
+                + ", hit=" + hitCount + ", miss=" + missCount + ", eviction=" + evictionCount + "}";
+    }
+
+    /**
+     * 缓存节点，pre、next 指向同一段链表中的前后节点
+     *
+     * @param <K>
+     * @param <V>
+     */
+    private static class Node<K, V> {
+        final K key;
+        V value;
+        int weight;
+        byte queue = WINDOW;
+        Node<K, V> pre;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 按访问顺序排列节点的双向链表，头部最久没有访问，尾部最近访问
+     *
+     * @param <K>
+     * @param <V>
+     */
+    private static class AccessOrder<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void addLast(Node<K, V> node) {
+            node.pre = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node<K, V> node) {
+            Node<K, V> preNode = node.pre;
+            Node<K, V> nextNode = node.next;
+            if (preNode == null) {
+                first = nextNode;
+            } else {
+                preNode.next = nextNode;
+            }
+            if (nextNode == null) {
+                last = preNode;
+            } else {
+                nextNode.pre = preNode;
+            }
+            node.pre = null;
+            node.next = null;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            first = last = null;
+        }
+    }
+
+    /**
+     * 近似统计访问频率的 count-min sketch，每个计数器4位（最大15），16个计数器打包在一个 long 中
+     * 每个 key 在4个位置计数，取最小值作为频率；总计数达到采样数时所有计数减半，让旧的热点逐渐冷却
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97cb3127, 0xb7a1c4e3, 0x5a8f9b2d, 0xd2f3a6e1};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long maximumSize) {
+            int capacity = 16;
+            while (capacity < maximumSize && capacity < (1 << 26)) {
+                capacity <<= 1;
+            }
+            table = new long[capacity];
+            tableMask = capacity - 1;
+            sampleSize = 10 * capacity;
+        }
+
+        int frequency(int hashCode) {
+            int frequency = 15;
+            for (int i = 0; i < 4; i++) {
+                int h = indexHash(hashCode, i);
+                int count = (int) ((table[h & tableMask] >>> offset(h)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(int hashCode) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int h = indexHash(hashCode, i);
+                int index = h & tableMask;
+                int offset = offset(h);
+                if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions >>>= 1;
+        }
+
+        private static int indexHash(int hashCode, int i) {
+            int h = (hashCode + SEEDS[i]) * SEEDS[i];
+            return h ^ (h >>> 17);
+        }
+
+        /**
+         * 用 hash 的高位选择 long 中的第几个计数器
+         */
+        private static int offset(int h) {
+            return (h >>> 28) << 2;
+        }
+    }
+}
@@ -15,6 +15,10 @@ public class SimpleMap<K, V> {
     private Node<K, V>[] data;
     private int size;
     private static final int DEFARLT_CAPACITY = 10;
+    /**
+     * 运行统计，未开启时为null
+     */
+    private MapStats stats;
 
     public SimpleMap() {
         data = (Node<K, V>[]) new Node[DEFARLT_CAPACITY];
@@ -41,16 +45,27 @@ public class SimpleMap<K, V> {
         } else {
             data[index].value = value;
         }
+        if (stats != null) {
+            stats.recordPut();
+            stats.updateLoad(size, data.length);
+        }
     }
 
     private void ensureCapacity(int minCapacity) {
         if (minCapacity == data.length) {
+            long start = stats != null ? System.nanoTime() : 0;
             int newCapacity = minCapacity << 1;
             data = Arrays.copyOf(data, newCapacity);
+            if (stats != null) {
+                stats.recordResize(System.nanoTime() - start);
+            }
         }
     }
 
     public V get(K key) {
+        if (stats != null) {
+            stats.recordGet();
+        }
         int index = indexOfKey(key);
         if (index != -1) {
             return data[index].value;
@@ -64,9 +79,37 @@ public class SimpleMap<K, V> {
             System.arraycopy(data, index + 1, data, index, size - index - 1);
             data[--size] = null;
         }
+        if (stats != null) {
+            stats.recordRemove();
+            stats.updateLoad(size, data.length);
+        }
         return null;
     }
 
+    /**
+     * 开启运行统计
+     *
+     * @return 返回统计对象，已开启时返回原来的对象
+     */
+    public MapStats enableStats() {
+        if (stats == null) {
+            stats = new MapStats();
+            stats.updateLoad(size, data.length);
+        }
+        return stats;
+    }
+
+    public void disableStats() {
+        stats = null;
+    }
+
+    /**
+     * @return 返回统计对象，未开启时返回null
+     */
+    public MapStats stats() {
+        return stats;
+    }
+
     /**
      * 查找key在数组中的索引
      *
@@ -79,12 +122,27 @@ public class SimpleMap<K, V> {
         }
         for (int i = 0; i < size; i++) {
             if (key.equals(data[i].key)) {
+                if (stats != null) {
+                    stats.recordProbe(i + 1);
+                }
                 return i;
             }
         }
+        if (stats != null) {
+            stats.recordProbe(size);
+        }
         return -1;
     }
 
+    /**
+     * 生成当前内容的只读快照，之后对本map的修改不影响快照
+     *
+     * @return 基于最小完美散列的只读map
+     */
+    public FrozenMap<K, V> freeze() {
+        return new FrozenMap<>(nodeSet());
+    }
+
     /**
      * node的set集合
      * @return
@@ -0,0 +1,317 @@
+package sort;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 外部排序：对超过内存大小的定长记录文件排序
+ * 记录长度固定为 recordSize 字节，按 keyOffset 处的 8 字节 long（大端）升序排序，key 相同的记录保持输入顺序
+ * 1. 按内存预算分块读入，块内按 key 稳定排序后写成一个有序的临时文件（run）
+ * 2. 临时文件分层存放：新写出的在第 0 层，某一层攒够 k = maxTempFiles - 1 个时，用最小堆把它们多路归并成一个放到上一层，
+ *    第 i 层的文件约由 k^i 个块归并而成，每条记录只被重写 O(log_k(块数)) 次
+ * 3. 最后剩下的临时文件超过 k 个时，先把最小的几个归并，使剩下的正好 k 个，再多路归并到输出文件
+ * 读写都通过 FileChannel 进行，归并时复用块的缓冲，按路数切分成读缓冲和写缓冲，任一阶段使用的内存不超过内存预算
+ */
+public class ExternalSort {
+    /**
+     * 块内排序时每条记录额外占用的内存：key 8 字节，下标和辅助下标各 4 字节
+     */
+    private static final int INDEX_BYTES_PER_RECORD = 16;
+    private static final int DEFAULT_MAX_TEMP_FILES = 64;
+
+    private final int recordSize;
+    private final int keyOffset;
+    private final int maxTempFiles;
+    /**
+     * 每块的记录数
+     */
+    private final int chunkRecords;
+    /**
+     * 分块排序时写缓冲的字节数
+     */
+    private final int writeBufferSize;
+    private final Path tempDir;
+
+    public ExternalSort(int recordSize, int keyOffset, long memoryBudget, Path tempDir) {
+        this(recordSize, keyOffset, memoryBudget, DEFAULT_MAX_TEMP_FILES, tempDir);
+    }
+
+    /**
+     * @param recordSize   每条记录的字节数
+     * @param keyOffset    key 在记录中的偏移，key 为 8 字节大端 long
+     * @param memoryBudget 排序使用的缓冲总字节数上限
+     * @param maxTempFiles 归并时同时打开的文件数上限（包括输出），多路归并的路数为 maxTempFiles - 1，至少为 3
+     * @param tempDir      临时文件目录
+     */
+    public ExternalSort(int recordSize, int keyOffset, long memoryBudget, int maxTempFiles, Path tempDir) {
+        if (recordSize <= 0 || keyOffset < 0 || keyOffset > recordSize - Long.BYTES) {
+            throw new IllegalArgumentException("illegal record layout: recordSize=" + recordSize + ", keyOffset=" + keyOffset);
+        }
+        if (maxTempFiles < 3) {
+            throw new IllegalArgumentException("maxTempFiles must be at least 3: " + maxTempFiles);
+        }
+        this.recordSize = recordSize;
+        this.keyOffset = keyOffset;
+        this.maxTempFiles = maxTempFiles;
+        // 写缓冲取预算的 1/16，不超过 1MiB，剩下的按每条记录 recordSize + 16 字节分给块
+        this.writeBufferSize = (int) Math.max(recordSize, Math.min(memoryBudget / 16, 1 << 20) / recordSize * recordSize);
+        long records = (memoryBudget - writeBufferSize) / (recordSize + INDEX_BYTES_PER_RECORD);
+        this.chunkRecords = (int) Math.min(Integer.MAX_VALUE / recordSize, records);
+        // 归并时块的缓冲要切分给每一路和输出，每份至少一条记录
+        if (chunkRecords < maxTempFiles) {
+            throw new IllegalArgumentException("memoryBudget too small: " + memoryBudget);
+        }
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * 排序 input 中的记录并写入 output，output 已存在时覆盖
+     */
+    public void sort(Path input, Path output) throws IOException {
+        // levels.get(i) 是第 i 层的临时文件，层数越高的文件中的记录在输入中越靠前
+        List<List<Path>> levels = new ArrayList<>();
+        ByteBuffer memory = ByteBuffer.allocate(chunkRecords * recordSize);
+        try {
+            try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+                if (in.size() % recordSize != 0) {
+                    throw new IllegalArgumentException("file size " + in.size() + " is not a multiple of record size " + recordSize);
+                }
+                createRuns(in, memory, levels);
+            }
+            // 按输入顺序排列，归并时 key 相同的记录才能保持原来的顺序
+            List<Path> runs = new ArrayList<>();
+            for (int i = levels.size() - 1; i >= 0; i--) {
+                runs.addAll(levels.get(i));
+            }
+            levels.clear();
+            levels.add(runs);
+            int fanIn = maxTempFiles - 1;
+            while (runs.size() > fanIn) {
+                // 最后的几个文件最小，归并后剩下 fanIn 个
+                List<Path> group = runs.subList(runs.size() - Math.min(fanIn, runs.size() - fanIn + 1), runs.size());
+                Path merged = mergeToTemp(new ArrayList<>(group), memory);
+                group.clear();
+                runs.add(merged);
+            }
+            if (runs.isEmpty()) {
+                Files.write(output, new byte[0]);
+            } else if (runs.size() == 1) {
+                Files.move(runs.remove(0), output, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                merge(runs, output, memory);
+                runs.clear();
+            }
+        } finally {
+            for (List<Path> level : levels) {
+                for (Path run : level) {
+                    Files.deleteIfExists(run);
+                }
+            }
+        }
+    }
+
+    /**
+     * 分块读入、排序，写成第 0 层的临时文件，某一层满 maxTempFiles - 1 个时归并到上一层
+     */
+    private void createRuns(FileChannel in, ByteBuffer chunk, List<List<Path>> levels) throws IOException {
+        levels.add(new ArrayList<>());
+        ByteBuffer out = ByteBuffer.allocate(writeBufferSize);
+        long[] keys = new long[chunkRecords];
+        int[] index = new int[chunkRecords];
+        int[] buffer = new int[chunkRecords];
+        while (true) {
+            chunk.clear();
+            readFully(in, chunk);
+            int count = chunk.position() / recordSize;
+            if (count == 0) {
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                keys[i] = chunk.getLong(i * recordSize + keyOffset);
+                index[i] = i;
+            }
+            MergeSort.sortIndex(keys, index, buffer, 0, count);
+            Path run = newTempFile();
+            levels.get(0).add(run);
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                byte[] records = chunk.array();
+                for (int i = 0; i < count; i++) {
+                    if (out.remaining() < recordSize) {
+                        writeFully(channel, out);
+                    }
+                    out.put(records, index[i] * recordSize, recordSize);
+                }
+                writeFully(channel, out);
+            }
+            if (count < chunkRecords) {
+                return;
+            }
+            // 块已写出，它的缓冲可以用来归并
+            for (int level = 0; levels.get(level).size() == maxTempFiles - 1; level++) {
+                Path merged = mergeToTemp(levels.get(level), chunk);
+                levels.get(level).clear();
+                if (level + 1 == levels.size()) {
+                    levels.add(new ArrayList<>());
+                }
+                levels.get(level + 1).add(merged);
+            }
+        }
+    }
+
+    /**
+     * 把 runs 归并到一个新的临时文件，失败时删除这个文件，runs 中的文件由调用者删除
+     */
+    private Path mergeToTemp(List<Path> runs, ByteBuffer memory) throws IOException {
+        Path merged = newTempFile();
+        boolean done = false;
+        try {
+            merge(runs, merged, memory);
+            done = true;
+        } finally {
+            if (!done) {
+                Files.deleteIfExists(merged);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 把 runs 多路归并到 target，归并完成后删除 runs 中的文件
+     * memory 平均切分成 runs.size() + 1 份，分别作为每一路的读缓冲和输出的写缓冲
+     * 用最小堆维护每一路当前的 key，key 相同时先取排在前面的一路，保证稳定
+     */
+    private void merge(List<Path> runs, Path target, ByteBuffer memory) throws IOException {
+        int k = runs.size();
+        int bufferSize = memory.capacity() / (k + 1) / recordSize * recordSize;
+        RunReader[] heap = new RunReader[k];
+        int size = 0;
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int i = 0; i < k; i++) {
+                RunReader reader = new RunReader(runs.get(i), i, memory.slice(i * bufferSize, bufferSize));
+                if (reader.next()) {
+                    heap[size++] = reader;
+                } else {
+                    reader.close();
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(heap, i, size);
+            }
+            ByteBuffer out = memory.slice(k * bufferSize, bufferSize);
+            while (size > 0) {
+                RunReader top = heap[0];
+                if (out.remaining() < recordSize) {
+                    writeFully(channel, out);
+                }
+                out.put(top.buffer.array(), top.buffer.arrayOffset() + top.position, recordSize);
+                if (!top.next()) {
+                    top.close();
+                    heap[0] = heap[--size];
+                    heap[size] = null;
+                }
+                siftDown(heap, 0, size);
+            }
+            writeFully(channel, out);
+        } finally {
+            for (int i = 0; i < size; i++) {
+                heap[i].close();
+            }
+        }
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+    }
+
+    private static void siftDown(RunReader[] heap, int i, int size) {
+        RunReader tmp = heap[i];
+        for (int k = i * 2 + 1; k < size; k = k * 2 + 1) {
+            if (k + 1 < size && heap[k + 1].before(heap[k])) {
+                k++;
+            }
+            if (heap[k].before(tmp)) {
+                heap[i] = heap[k];
+                i = k;
+            } else {
+                break;
+            }
+        }
+        heap[i] = tmp;
+    }
+
+    private Path newTempFile() throws IOException {
+        return Files.createTempFile(tempDir, "sort-run-", ".tmp");
+    }
+
+    /**
+     * 读到 buffer 写满或文件结束
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        }
+    }
+
+    /**
+     * 写出 buffer 中的全部内容并清空 buffer
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * 顺序读取一个有序的临时文件，position 指向当前记录
+     */
+    private final class RunReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final int order;
+        private int position;
+        private int limit;
+        private long key;
+
+        RunReader(Path path, int order, ByteBuffer buffer) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.buffer = buffer;
+            this.order = order;
+            this.position = -recordSize;
+        }
+
+        /**
+         * 移动到下一条记录
+         * @return 没有更多记录时返回 false
+         */
+        boolean next() throws IOException {
+            position += recordSize;
+            if (position >= limit) {
+                buffer.clear();
+                readFully(channel, buffer);
+                limit = buffer.position();
+                position = 0;
+                if (limit == 0) {
+                    return false;
+                }
+            }
+            key = buffer.getLong(position + keyOffset);
+            return true;
+        }
+
+        boolean before(RunReader other) {
+            return key < other.key || (key == other.key && order < other.order);
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,52 +1,214 @@
 package sort;
 
+import java.util.Comparator;
+import java.util.Objects;
+
 /**
  * 堆排序
  * 建立最大堆、最大值跟最后要给值替换，调整最大堆
+ * 不稳定，double 按 {@link Double#compare} 的顺序排序
  */
 public class HeapSort {
+    /**
+     * {@link #floydSort(int[])} 默认的叉数
+     */
+    private static final int DEFAULT_ARITY = 4;
 
     public static void sort(int[] a) {
-        createMaxHeap(a);
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序，堆的下标相对于 from 计算
+     */
+    public static void sort(int[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        createMaxHeap(a, from, to);
         //循环：没替换一次 将最有一个节点从堆中去除，并从索引0开始调整堆，直到堆大小为1
-        for (int i = a.length - 1; i > 0 ; i--) {
-            swap(a, 0, i);
-            adjustMaxHeap(a,0, i);
+        for (int i = to - from - 1; i > 0 ; i--) {
+            swap(a, from, from + i);
+            adjustMaxHeap(a, from, 0, i);
         }
     }
 
     /**
      * 创建最大堆
-     * 从最后一个非叶节点开始调整其为顶点的堆，往上遍历
+     * 从最后一个非叶节点开始调整其为顶点的堆，往上遍历，包括根节点
      * @param a
      */
-    private static void createMaxHeap(int[] a) {
-        for (int i = (a.length/2) -1 ; i > 0; i--) {
-            adjustMaxHeap(a,i, a.length);
+    private static void createMaxHeap(int[] a, int from, int to) {
+        int n = to - from;
+        for (int i = (n/2) -1 ; i >= 0; i--) {
+            adjustMaxHeap(a, from, i, n);
         }
     }
 
     /**
-     * 调整最大堆, 跟左右节点比较 不是最大就替换，继续往下调整
+     * 调整最大堆, 跟左右节点比较 不是最大就上移，继续往下调整
+     * 不逐层交换：较大的子节点移到空位（hole）上，空位下移，tmp 最后只写一次
      * @param a 数组
+     * @param base 堆在数组中的起始位置
      * @param i 起始索引
      * @param j 结尾索引
      */
-    private static void adjustMaxHeap(int[] a, int i, int j) {
-        int tmp = a[i];
+    private static void adjustMaxHeap(int[] a, int base, int i, int j) {
+        int tmp = a[base + i];
         for (int k = i*2 +1; k < j; k = k*2+1) {
+            if (SortStats.ENABLED) {
+                SortStats.compare();
+                if (k + 1 < j) {
+                    SortStats.compare();
+                }
+            }
             //左右节点比较出较大的
-            if (k+1 < j && a[k] < a[k+1]) {
+            if (k+1 < j && a[base + k] < a[base + k+1]) {
                 k++;
             }
-            //较大的跟tmp比较，更大则互换，继续for循环
-            if (a[k] > tmp) {
-                swap(a,i,k);
+            //较大的跟tmp比较，更大则上移到空位，继续for循环
+            if (a[base + k] > tmp) {
+                a[base + i] = a[base + k];
                 i = k;
+                if (SortStats.ENABLED) {
+                    SortStats.move(1);
+                }
             } else { //tmp比较大 直接中断 已调整好
                 break;
             }
         }
+        a[base + i] = tmp;
+    }
+
+    /**
+     * Floyd 自底向上的堆排序，4 叉堆，见 {@link #floydSort(int[], int, int, int)}
+     */
+    public static void floydSort(int[] a) {
+        floydSort(a, 0, a.length, DEFAULT_ARITY);
+    }
+
+    public static void floydSort(int[] a, int arity) {
+        floydSort(a, 0, a.length, arity);
+    }
+
+    /**
+     * Floyd 自底向上的堆排序，对 [from, to) 区间排序
+     * 每次取出堆顶后，原来末尾的元素 x 要放回堆中。x 通常很小，最终会落到接近叶子的位置，
+     * 所以先不和 x 比较，让空位沿着较大的子节点一直下移到叶子（每层只在子节点之间比较），再把 x 从叶子向上找位置，一般只需很少几步
+     * 比 {@link #sort(int[])} 每层少一次与 x 的比较，移动都是对空位赋值，不交换
+     * d 叉堆：节点 i 的子节点为 d*i+1 ... d*i+d，层数是二叉堆的 1/log2(d)，同一节点的子节点相邻，
+     * 一次下移读取的子节点在同一个或相邻的缓存行中，数组大于缓存时缺失次数更少
+     *
+     * @param arity 堆的叉数 d，必须是 2 的幂，父子节点的下标用移位计算
+     */
+    public static void floydSort(int[] a, int from, int to, int arity) {
+        Objects.checkFromToIndex(from, to, a.length);
+        if (arity < 2 || Integer.bitCount(arity) != 1) {
+            throw new IllegalArgumentException("arity must be a power of two: " + arity);
+        }
+        int shift = Integer.numberOfTrailingZeros(arity);
+        int n = to - from;
+        for (int i = (n - 2) >> shift; i >= 0 && n > 1; i--) {
+            siftDown(a, from, i, n, shift);
+        }
+        for (int end = n - 1; end > 0; end--) {
+            int x = a[from + end];
+            a[from + end] = a[from];
+            floydSift(a, from, x, end, shift);
+        }
+    }
+
+    /**
+     * 建堆用的下沉：x 大于最大的子节点时立即停止，空位下移
+     */
+    private static void siftDown(int[] a, int base, int i, int n, int shift) {
+        int x = a[base + i];
+        // 只在内部节点上下移，子节点下标不会超过 n - 1，大数组上也不会溢出
+        int lastParent = (n - 2) >> shift;
+        while (i <= lastParent) {
+            int child = (i << shift) + 1;
+            int max = maxChild(a, base, child, child + Math.min(1 << shift, n - child));
+            if (SortStats.ENABLED) {
+                SortStats.compare();
+            }
+            if (a[base + max] <= x) {
+                break;
+            }
+            a[base + i] = a[base + max];
+            i = max;
+            if (SortStats.ENABLED) {
+                SortStats.move(1);
+            }
+        }
+        a[base + i] = x;
+    }
+
+    /**
+     * 把 x 放入以 0 为根、大小为 n、根为空位的堆：空位沿较大的子节点下移到叶子，再把 x 从叶子向上移到合适的位置
+     */
+    private static void floydSift(int[] a, int base, int x, int n, int shift) {
+        int hole = 0;
+        // 只在内部节点上下移，子节点下标不会超过 n - 1，大数组上也不会溢出
+        int lastParent = (n - 2) >> shift;
+        while (hole <= lastParent) {
+            int child = (hole << shift) + 1;
+            int max = maxChild(a, base, child, child + Math.min(1 << shift, n - child));
+            a[base + hole] = a[base + max];
+            hole = max;
+            if (SortStats.ENABLED) {
+                SortStats.move(1);
+            }
+        }
+        while (hole > 0) {
+            int parent = (hole - 1) >> shift;
+            if (SortStats.ENABLED) {
+                SortStats.compare();
+            }
+            if (a[base + parent] >= x) {
+                break;
+            }
+            a[base + hole] = a[base + parent];
+            hole = parent;
+            if (SortStats.ENABLED) {
+                SortStats.move(1);
+            }
+        }
+        a[base + hole] = x;
+    }
+
+    /**
+     * 子节点 [from, to) 中最大的一个
+     */
+    private static int maxChild(int[] a, int base, int from, int to) {
+        int max = from;
+        for (int c = from + 1; c < to; c++) {
+            if (SortStats.ENABLED) {
+                SortStats.compare();
+            }
+            max = a[base + c] > a[base + max] ? c : max;
+        }
+        return max;
+    }
+
+    /**
+     * 调整最小堆，与 {@link #adjustMaxHeap} 相反：较小的子节点上移，a[base + i] 最后放入空出的位置
+     * @param a 数组
+     * @param base 堆在数组中的起始位置
+     * @param i 起始索引
+     * @param j 结尾索引
+     */
+    static void adjustMinHeap(int[] a, int base, int i, int j) {
+        int tmp = a[base + i];
+        for (int k = i * 2 + 1; k < j; k = k * 2 + 1) {
+            if (k + 1 < j && a[base + k + 1] < a[base + k]) {
+                k++;
+            }
+            if (a[base + k] < tmp) {
+                a[base + i] = a[base + k];
+                i = k;
+            } else {
+                break;
+            }
+        }
+        a[base + i] = tmp;
     }
 
     /**
@@ -56,8 +218,125 @@ public class HeapSort {
      * @param j
      */
     private static void swap(int[] a, int i, int j) {
+        if (SortStats.ENABLED) {
+            SortStats.swap();
+        }
         int tmp = a[i];
         a[i] = a[j];
         a[j] = tmp;
     }
+
+    public static void sort(long[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(long[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            adjustMaxHeap(a, from, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            long tmp = a[from];
+            a[from] = a[from + i];
+            a[from + i] = tmp;
+            adjustMaxHeap(a, from, 0, i);
+        }
+    }
+
+    /**
+     * 调整最大堆，较大的子节点上移，tmp 最后放入空出的位置
+     */
+    private static void adjustMaxHeap(long[] a, int base, int i, int j) {
+        long tmp = a[base + i];
+        for (int k = i * 2 + 1; k < j; k = k * 2 + 1) {
+            if (k + 1 < j && a[base + k] < a[base + k + 1]) {
+                k++;
+            }
+            if (a[base + k] > tmp) {
+                a[base + i] = a[base + k];
+                i = k;
+            } else {
+                break;
+            }
+        }
+        a[base + i] = tmp;
+    }
+
+    public static void sort(double[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(double[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            adjustMaxHeap(a, from, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            double tmp = a[from];
+            a[from] = a[from + i];
+            a[from + i] = tmp;
+            adjustMaxHeap(a, from, 0, i);
+        }
+    }
+
+    private static void adjustMaxHeap(double[] a, int base, int i, int j) {
+        double tmp = a[base + i];
+        for (int k = i * 2 + 1; k < j; k = k * 2 + 1) {
+            if (k + 1 < j && Double.compare(a[base + k], a[base + k + 1]) < 0) {
+                k++;
+            }
+            if (Double.compare(a[base + k], tmp) > 0) {
+                a[base + i] = a[base + k];
+                i = k;
+            } else {
+                break;
+            }
+        }
+        a[base + i] = tmp;
+    }
+
+    public static <T> void sort(T[] a, Comparator<? super T> c) {
+        sort(a, 0, a.length, c);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static <T> void sort(T[] a, int from, int to, Comparator<? super T> c) {
+        Objects.checkFromToIndex(from, to, a.length);
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            adjustMaxHeap(a, from, i, n, c);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            T tmp = a[from];
+            a[from] = a[from + i];
+            a[from + i] = tmp;
+            adjustMaxHeap(a, from, 0, i, c);
+        }
+    }
+
+    private static <T> void adjustMaxHeap(T[] a, int base, int i, int j, Comparator<? super T> c) {
+        T tmp = a[base + i];
+        for (int k = i * 2 + 1; k < j; k = k * 2 + 1) {
+            if (k + 1 < j && c.compare(a[base + k], a[base + k + 1]) < 0) {
+                k++;
+            }
+            if (c.compare(a[base + k], tmp) > 0) {
+                a[base + i] = a[base + k];
+                i = k;
+            } else {
+                break;
+            }
+        }
+        a[base + i] = tmp;
+    }
 }
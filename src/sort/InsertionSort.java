@@ -1,21 +1,99 @@
 package sort;
 
+import java.util.Comparator;
+import java.util.Objects;
+
 /**
  * 插入排序 构建有序序列，对于未排序数据，在已排序序列中从后向前扫描，找到相应位置并插入
+ * 稳定排序，double 按 {@link Double#compare} 的顺序排序
  * @author 严书航
  */
 public class InsertionSort {
     public static void sort(int[] a) {
-        for (int i = 1; i < a.length; i++) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(int[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        for (int i = from + 1; i < to; i++) {
             int key = a[i];
-            for (int j = i - 1; j >= 0; j--) {
+            for (int j = i - 1; j >= from; j--) {
+                if (SortStats.ENABLED) {
+                    SortStats.compare();
+                }
                 if (a[j] > key) {
                     a[j + 1] = a[j];
                     a[j] = key;
+                    if (SortStats.ENABLED) {
+                        SortStats.swap();
+                    }
                 } else {
                     break;
                 }
             }
         }
     }
+
+    public static void sort(long[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(long[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        for (int i = from + 1; i < to; i++) {
+            long key = a[i];
+            int j = i - 1;
+            while (j >= from && a[j] > key) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+
+    public static void sort(double[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(double[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        for (int i = from + 1; i < to; i++) {
+            double key = a[i];
+            int j = i - 1;
+            while (j >= from && Double.compare(a[j], key) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
+
+    public static <T> void sort(T[] a, Comparator<? super T> c) {
+        sort(a, 0, a.length, c);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static <T> void sort(T[] a, int from, int to, Comparator<? super T> c) {
+        Objects.checkFromToIndex(from, to, a.length);
+        for (int i = from + 1; i < to; i++) {
+            T key = a[i];
+            int j = i - 1;
+            while (j >= from && c.compare(a[j], key) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = key;
+        }
+    }
 }
@@ -1,12 +1,30 @@
 package sort;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 归并排序
  * 将已有序的子序列合并，得到完全有序的序列
+ * 稳定排序，long、double 和对象数组的 sort 使用自底向上的归并，结果写回原数组，double 按 {@link Double#compare} 的顺序排序
  */
 public class MergeSort {
+    /**
+     * 并行排序默认的顺序阈值：子区间不超过该长度时在当前线程中排序
+     */
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+    private static final int MIN_PARALLEL_THRESHOLD = 1 << 6;
+    /**
+     * 区间长度不超过该值时改用插入排序
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+    /**
+     * galloping 合并中一边连续胜出多少次后进入 galloping
+     */
+    private static final int MIN_GALLOP = 7;
 
     /**
      * 递归排序子序列
@@ -17,10 +35,19 @@ public class MergeSort {
         if (a.length < 2) {
             return a;
         }
+        if (SortStats.ENABLED) {
+            SortStats.enter();
+            // 左右两半的副本
+            SortStats.allocate(4L * a.length);
+        }
         int mid = a.length/2;
         int[] left = Arrays.copyOfRange(a, 0, mid);
         int[] right = Arrays.copyOfRange(a, mid, a.length);
-        return merge(sort(left), sort(right));
+        int[] result = merge(sort(left), sort(right));
+        if (SortStats.ENABLED) {
+            SortStats.exit();
+        }
+        return result;
     }
 
     /**
@@ -29,11 +56,18 @@ public class MergeSort {
      * @param right
      * @return
      */
-    private static int[] merge(int[] left, int[] right) {
+    static int[] merge(int[] left, int[] right) {
         int[] result = new int[left.length + right.length];
+        if (SortStats.ENABLED) {
+            SortStats.allocate(4L * result.length);
+            SortStats.move(result.length);
+        }
         int i = 0;
         int j = 0;
         for (int k = 0; k < result.length; k++) {
+            if (SortStats.ENABLED && i < left.length && j < right.length) {
+                SortStats.compare();
+            }
             if (i >= left.length) {
                 result[k] = right[j++];
             } else if (j >= right.length) {
@@ -46,4 +80,654 @@ public class MergeSort {
         }
         return result;
     }
+
+    /**
+     * 自底向上的归并排序，结果写回 a，不分配内存
+     * 先用插入排序把每 32 个元素排好，再按 32、64、128... 的宽度两两合并，每一轮在 a 和 buffer 之间交替写入
+     *
+     * @param a      待排序数组
+     * @param buffer 辅助空间，长度不小于 a.length，可以在多次调用间重复使用
+     */
+    public static void sort(int[] a, int[] buffer) {
+        if (buffer == null || buffer.length < a.length) {
+            throw new IllegalArgumentException("buffer length must be at least " + a.length);
+        }
+        bottomUpSort(a, 0, a.length, buffer);
+    }
+
+    /**
+     * 对 [from, to) 区间排序，结果写回 a
+     */
+    public static void sort(int[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        if (SortStats.ENABLED) {
+            SortStats.allocate(4L * (to - from));
+        }
+        bottomUpSort(a, from, to, new int[to - from]);
+    }
+
+    /**
+     * 对 a[from, to) 做自底向上的归并排序，使用 buffer[0, to-from) 作为辅助空间
+     */
+    static void bottomUpSort(int[] a, int from, int to, int[] buffer) {
+        int n = to - from;
+        for (int lo = from; lo < to; lo += INSERTION_SORT_THRESHOLD) {
+            InsertionSort.sort(a, lo, Math.min(lo + INSERTION_SORT_THRESHOLD, to));
+        }
+        int[] src = a;
+        int[] dst = buffer;
+        int srcBase = from;
+        int dstBase = 0;
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                merge(src, srcBase + lo, srcBase + mid, srcBase + mid, srcBase + hi, dst, dstBase + lo);
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpBase = srcBase;
+            srcBase = dstBase;
+            dstBase = tmpBase;
+        }
+        // 最后一轮写在 buffer 中时复制回来
+        if (src != a) {
+            if (SortStats.ENABLED) {
+                SortStats.move(n);
+            }
+            System.arraycopy(src, srcBase, a, from, n);
+        }
+    }
+
+    public static void sort(long[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(long[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        bottomUpSort(a, from, to, new long[to - from]);
+    }
+
+    private static void bottomUpSort(long[] a, int from, int to, long[] buffer) {
+        int n = to - from;
+        for (int lo = from; lo < to; lo += INSERTION_SORT_THRESHOLD) {
+            InsertionSort.sort(a, lo, Math.min(lo + INSERTION_SORT_THRESHOLD, to));
+        }
+        long[] src = a;
+        long[] dst = buffer;
+        int srcBase = from;
+        int dstBase = 0;
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                merge(src, srcBase + lo, srcBase + mid, srcBase + mid, srcBase + hi, dst, dstBase + lo);
+            }
+            long[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpBase = srcBase;
+            srcBase = dstBase;
+            dstBase = tmpBase;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcBase, a, from, n);
+        }
+    }
+
+    private static void merge(long[] src, int lo1, int hi1, int lo2, int hi2, long[] dst, int out) {
+        while (lo1 < hi1 && lo2 < hi2) {
+            if (src[lo2] < src[lo1]) {
+                dst[out++] = src[lo2++];
+            } else {
+                dst[out++] = src[lo1++];
+            }
+        }
+        if (lo1 < hi1) {
+            System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+        } else if (lo2 < hi2) {
+            System.arraycopy(src, lo2, dst, out, hi2 - lo2);
+        }
+    }
+
+    public static void sort(double[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(double[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        bottomUpSort(a, from, to, new double[to - from]);
+    }
+
+    private static void bottomUpSort(double[] a, int from, int to, double[] buffer) {
+        int n = to - from;
+        for (int lo = from; lo < to; lo += INSERTION_SORT_THRESHOLD) {
+            InsertionSort.sort(a, lo, Math.min(lo + INSERTION_SORT_THRESHOLD, to));
+        }
+        double[] src = a;
+        double[] dst = buffer;
+        int srcBase = from;
+        int dstBase = 0;
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                merge(src, srcBase + lo, srcBase + mid, srcBase + mid, srcBase + hi, dst, dstBase + lo);
+            }
+            double[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpBase = srcBase;
+            srcBase = dstBase;
+            dstBase = tmpBase;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcBase, a, from, n);
+        }
+    }
+
+    private static void merge(double[] src, int lo1, int hi1, int lo2, int hi2, double[] dst, int out) {
+        while (lo1 < hi1 && lo2 < hi2) {
+            if (Double.compare(src[lo2], src[lo1]) < 0) {
+                dst[out++] = src[lo2++];
+            } else {
+                dst[out++] = src[lo1++];
+            }
+        }
+        if (lo1 < hi1) {
+            System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+        } else if (lo2 < hi2) {
+            System.arraycopy(src, lo2, dst, out, hi2 - lo2);
+        }
+    }
+
+    public static <T> void sort(T[] a, Comparator<? super T> c) {
+        sort(a, 0, a.length, c);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static <T> void sort(T[] a, int from, int to, Comparator<? super T> c) {
+        Objects.checkFromToIndex(from, to, a.length);
+        bottomUpSort(a, from, to, Arrays.copyOfRange(a, from, to), c);
+    }
+
+    private static <T> void bottomUpSort(T[] a, int from, int to, T[] buffer, Comparator<? super T> c) {
+        int n = to - from;
+        for (int lo = from; lo < to; lo += INSERTION_SORT_THRESHOLD) {
+            InsertionSort.sort(a, lo, Math.min(lo + INSERTION_SORT_THRESHOLD, to), c);
+        }
+        T[] src = a;
+        T[] dst = buffer;
+        int srcBase = from;
+        int dstBase = 0;
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + (width << 1), n);
+                merge(src, srcBase + lo, srcBase + mid, srcBase + mid, srcBase + hi, dst, dstBase + lo, c);
+            }
+            T[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpBase = srcBase;
+            srcBase = dstBase;
+            dstBase = tmpBase;
+        }
+        if (src != a) {
+            System.arraycopy(src, srcBase, a, from, n);
+        }
+    }
+
+    private static <T> void merge(T[] src, int lo1, int hi1, int lo2, int hi2, T[] dst, int out, Comparator<? super T> c) {
+        while (lo1 < hi1 && lo2 < hi2) {
+            if (c.compare(src[lo2], src[lo1]) < 0) {
+                dst[out++] = src[lo2++];
+            } else {
+                dst[out++] = src[lo1++];
+            }
+        }
+        if (lo1 < hi1) {
+            System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+        } else if (lo2 < hi2) {
+            System.arraycopy(src, lo2, dst, out, hi2 - lo2);
+        }
+    }
+
+    /**
+     * 返回使 keys 有序的下标排列：keys[result[0]] <= keys[result[1]] <= ...，key 相同时下标小的在前，不修改 keys
+     */
+    public static int[] argsort(int[] keys) {
+        int n = keys.length;
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            index[i] = i;
+        }
+        sortIndex(keys, index, new int[n], 0, n);
+        return index;
+    }
+
+    /**
+     * 按 keys[index[i]] 对 index[from, to) 稳定排序，buffer[0, to-from) 作为辅助空间
+     */
+    static void sortIndex(int[] keys, int[] index, int[] buffer, int from, int to) {
+        int n = to - from;
+        // 每 32 个下标先做插入排序
+        for (int lo = from; lo < to; lo += INSERTION_SORT_THRESHOLD) {
+            int hi = Math.min(lo + INSERTION_SORT_THRESHOLD, to);
+            for (int i = lo + 1; i < hi; i++) {
+                int x = index[i];
+                int key = keys[x];
+                int j = i - 1;
+                while (j >= lo && keys[index[j]] > key) {
+                    index[j + 1] = index[j];
+                    j--;
+                }
+                index[j + 1] = x;
+            }
+        }
+        int[] src = index;
+        int[] dst = buffer;
+        int srcBase = from;
+        int dstBase = 0;
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int lo1 = srcBase + lo;
+                int hi1 = srcBase + Math.min(lo + width, n);
+                int lo2 = hi1;
+                int hi2 = srcBase + Math.min(lo + (width << 1), n);
+                int out = dstBase + lo;
+                while (lo1 < hi1 && lo2 < hi2) {
+                    dst[out++] = keys[src[lo2]] < keys[src[lo1]] ? src[lo2++] : src[lo1++];
+                }
+                System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+                System.arraycopy(src, lo2, dst, out + hi1 - lo1, hi2 - lo2);
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpBase = srcBase;
+            srcBase = dstBase;
+            dstBase = tmpBase;
+        }
+        if (src != index) {
+            System.arraycopy(src, srcBase, index, from, n);
+        }
+    }
+
+    /**
+     * 返回使 keys 有序的下标排列：keys[result[0]] <= keys[result[1]] <= ...，key 相同时下标小的在前，不修改 keys
+     */
+    public static int[] argsort(long[] keys) {
+        int n = keys.length;
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            index[i] = i;
+        }
+        sortIndex(keys, index, new int[n], 0, n);
+        return index;
+    }
+
+    static void sortIndex(long[] keys, int[] index, int[] buffer, int from, int to) {
+        int n = to - from;
+        // 每 32 个下标先做插入排序
+        for (int lo = from; lo < to; lo += INSERTION_SORT_THRESHOLD) {
+            int hi = Math.min(lo + INSERTION_SORT_THRESHOLD, to);
+            for (int i = lo + 1; i < hi; i++) {
+                int x = index[i];
+                long key = keys[x];
+                int j = i - 1;
+                while (j >= lo && keys[index[j]] > key) {
+                    index[j + 1] = index[j];
+                    j--;
+                }
+                index[j + 1] = x;
+            }
+        }
+        int[] src = index;
+        int[] dst = buffer;
+        int srcBase = from;
+        int dstBase = 0;
+        for (int width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            for (int lo = 0; lo < n; lo += width << 1) {
+                int lo1 = srcBase + lo;
+                int hi1 = srcBase + Math.min(lo + width, n);
+                int lo2 = hi1;
+                int hi2 = srcBase + Math.min(lo + (width << 1), n);
+                int out = dstBase + lo;
+                while (lo1 < hi1 && lo2 < hi2) {
+                    dst[out++] = keys[src[lo2]] < keys[src[lo1]] ? src[lo2++] : src[lo1++];
+                }
+                System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+                System.arraycopy(src, lo2, dst, out + hi1 - lo1, hi2 - lo2);
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+            int tmpBase = srcBase;
+            srcBase = dstBase;
+            dstBase = tmpBase;
+        }
+        if (src != index) {
+            System.arraycopy(src, srcBase, index, from, n);
+        }
+    }
+
+    /**
+     * 按 keys 稳定排序，payload 中的元素随对应的 key 一起移动
+     * 先 {@link #argsort} 得到下标排列，再沿排列的置换环原地移动 keys 和 payload，每个元素只移动一次
+     *
+     * @param payload 长度与 keys 相同
+     */
+    public static void sortByKey(int[] keys, int[] payload) {
+        checkPayload(keys.length, payload.length);
+        int[] index = argsort(keys);
+        for (int i = 0; i < index.length; i++) {
+            if (index[i] < 0 || index[i] == i) {
+                continue;
+            }
+            int key = keys[i];
+            int value = payload[i];
+            int j = i;
+            // index[j] 是应该放到 j 的元素的原位置，处理过的位置取反作为标记
+            while (true) {
+                int source = index[j];
+                index[j] = ~source;
+                if (source == i) {
+                    keys[j] = key;
+                    payload[j] = value;
+                    break;
+                }
+                keys[j] = keys[source];
+                payload[j] = payload[source];
+                j = source;
+            }
+        }
+    }
+
+    /**
+     * 按 keys 稳定排序，payload 中的元素随对应的 key 一起移动
+     *
+     * @param payload 长度与 keys 相同
+     */
+    public static void sortByKey(int[] keys, long[] payload) {
+        checkPayload(keys.length, payload.length);
+        int[] index = argsort(keys);
+        for (int i = 0; i < index.length; i++) {
+            if (index[i] < 0 || index[i] == i) {
+                continue;
+            }
+            int key = keys[i];
+            long value = payload[i];
+            int j = i;
+            while (true) {
+                int source = index[j];
+                index[j] = ~source;
+                if (source == i) {
+                    keys[j] = key;
+                    payload[j] = value;
+                    break;
+                }
+                keys[j] = keys[source];
+                payload[j] = payload[source];
+                j = source;
+            }
+        }
+    }
+
+    static void checkPayload(int keysLength, int payloadLength) {
+        if (payloadLength != keysLength) {
+            throw new IllegalArgumentException("payload length " + payloadLength + " does not match keys length " + keysLength);
+        }
+    }
+
+    /**
+     * 并行归并排序，在公共 ForkJoinPool 中执行，结果写回 a
+     */
+    public static void parallelSort(int[] a) {
+        parallelSort(a, DEFAULT_PARALLEL_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行归并排序：两半分别在不同线程中排序，合并时也按中位数拆分成两个子任务并行合并
+     * 只额外分配一个与 a 等长的缓冲，排序过程在 a 和缓冲之间交替写入，不需要把结果复制回来
+     *
+     * @param a         待排序数组
+     * @param threshold 子区间不超过该长度时不再拆分任务，越小并行度越高但调度开销越大
+     * @param pool      执行排序的线程池
+     */
+    public static void parallelSort(int[] a, int threshold, ForkJoinPool pool) {
+        if (a.length < 2) {
+            return;
+        }
+        threshold = Math.max(threshold, MIN_PARALLEL_THRESHOLD);
+        if (SortStats.ENABLED) {
+            SortStats.allocate(4L * a.length);
+        }
+        int[] buffer = a.clone();
+        pool.invoke(new SortTask(buffer, a, 0, a.length, threshold, SortStats.current()));
+    }
+
+    /**
+     * 排序 src[lo, hi) 并把结果写到 dst[lo, hi)，调用前 src、dst 在该区间的内容相同，src 作为辅助空间
+     */
+    private static void sortTo(int[] src, int[] dst, int lo, int hi) {
+        if (hi - lo <= INSERTION_SORT_THRESHOLD) {
+            InsertionSort.sort(dst, lo, hi);
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        // 子区间的结果写到 src，再合并到 dst
+        sortTo(dst, src, lo, mid);
+        sortTo(dst, src, mid, hi);
+        merge(src, lo, mid, mid, hi, dst, lo);
+    }
+
+    /**
+     * 合并两个有序区间 src[lo1, hi1) 和 src[lo2, hi2)，结果从 dst[out] 开始写入，相等时左边的在前
+     */
+    static void merge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int out) {
+        if (SortStats.ENABLED) {
+            SortStats.move(hi1 - lo1 + hi2 - lo2);
+        }
+        while (lo1 < hi1 && lo2 < hi2) {
+            if (SortStats.ENABLED) {
+                SortStats.compare();
+            }
+            if (src[lo2] < src[lo1]) {
+                dst[out++] = src[lo2++];
+            } else {
+                dst[out++] = src[lo1++];
+            }
+        }
+        if (lo1 < hi1) {
+            System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+        } else if (lo2 < hi2) {
+            System.arraycopy(src, lo2, dst, out, hi2 - lo2);
+        }
+    }
+
+    /**
+     * 带有 galloping 的合并，结果与 {@link #merge} 相同
+     * 某一边连续 MIN_GALLOP 次胜出时，认为这一边接下来还有很长一段较小的元素，
+     * 用 {@link #gallop} 找到这一段的终点后整段复制，部分有序的数据合并时比较次数远少于逐个比较
+     */
+    static void gallopMerge(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int out) {
+        int count1 = 0;
+        int count2 = 0;
+        while (lo1 < hi1 && lo2 < hi2) {
+            if (src[lo2] < src[lo1]) {
+                dst[out++] = src[lo2++];
+                count2++;
+                count1 = 0;
+            } else {
+                dst[out++] = src[lo1++];
+                count1++;
+                count2 = 0;
+            }
+            if (count1 >= MIN_GALLOP && lo2 < hi2) {
+                // 左边不大于 src[lo2] 的元素整段复制，相等时左边在前
+                int end = gallop(src, lo1, hi1, src[lo2], true);
+                System.arraycopy(src, lo1, dst, out, end - lo1);
+                out += end - lo1;
+                lo1 = end;
+                count1 = 0;
+            } else if (count2 >= MIN_GALLOP && lo1 < hi1) {
+                // 右边小于 src[lo1] 的元素整段复制
+                int end = gallop(src, lo2, hi2, src[lo1], false);
+                System.arraycopy(src, lo2, dst, out, end - lo2);
+                out += end - lo2;
+                lo2 = end;
+                count2 = 0;
+            }
+        }
+        if (lo1 < hi1) {
+            System.arraycopy(src, lo1, dst, out, hi1 - lo1);
+        } else if (lo2 < hi2) {
+            System.arraycopy(src, lo2, dst, out, hi2 - lo2);
+        }
+    }
+
+    /**
+     * 与 {@link #search} 的结果相同，但先从 lo 开始按 1、2、4... 的步长向后探测，再在最后一段中二分查找
+     * 结果离 lo 为 k 时只需要 O(log k) 次比较
+     */
+    static int gallop(int[] a, int lo, int hi, int key, boolean strict) {
+        int bound = lo;
+        int step = 1;
+        while (bound < hi && (a[bound] < key || (strict && a[bound] == key))) {
+            lo = bound + 1;
+            bound = step < hi - bound ? bound + step : hi;
+            step <<= 1;
+        }
+        return search(a, lo, bound, key, strict);
+    }
+
+    /**
+     * 返回有序区间 a[lo, hi) 中第一个不小于 key（strict 为 true 时为大于 key）的位置
+     */
+    private static int search(int[] a, int lo, int hi, int key, boolean strict) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key || (strict && a[mid] == key)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 并行排序任务：排序 src[lo, hi) 并把结果写到 dst[lo, hi)
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int[] dst;
+        private final int lo;
+        private final int hi;
+        private final int threshold;
+        /**
+         * 调用 parallelSort 的线程的统计，未开启统计时为 null
+         */
+        private final SortStats stats;
+
+        SortTask(int[] src, int[] dst, int lo, int hi, int threshold, SortStats stats) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.threshold = threshold;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (SortStats.ENABLED) {
+                SortStats.collect(stats, this::sortRange);
+            } else {
+                sortRange();
+            }
+        }
+
+        private void sortRange() {
+            if (hi - lo <= threshold) {
+                sortTo(src, dst, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(dst, src, lo, mid, threshold, stats),
+                    new SortTask(dst, src, mid, hi, threshold, stats));
+            new MergeTask(src, lo, mid, mid, hi, dst, lo, threshold, stats).compute();
+        }
+    }
+
+    /**
+     * 并行合并任务：取较长区间的中间元素，在另一个区间中二分查找它的位置，两边各自合并，互不重叠
+     */
+    private static final class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int[] dst;
+        private final int out;
+        private final int threshold;
+        private final SortStats stats;
+
+        MergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int out, int threshold, SortStats stats) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.out = out;
+            this.threshold = threshold;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (SortStats.ENABLED) {
+                SortStats.collect(stats, this::mergeRange);
+            } else {
+                mergeRange();
+            }
+        }
+
+        private void mergeRange() {
+            int length1 = hi1 - lo1;
+            int length2 = hi2 - lo2;
+            if (length1 + length2 <= threshold) {
+                merge(src, lo1, hi1, lo2, hi2, dst, out);
+                return;
+            }
+            int split1;
+            int split2;
+            if (length1 >= length2) {
+                split1 = (lo1 + hi1) >>> 1;
+                split2 = search(src, lo2, hi2, src[split1], false);
+            } else {
+                split2 = (lo2 + hi2) >>> 1;
+                split1 = search(src, lo1, hi1, src[split2], true);
+            }
+            int out2 = out + (split1 - lo1) + (split2 - lo2);
+            invokeAll(new MergeTask(src, lo1, split1, lo2, split2, dst, out, threshold, stats),
+                    new MergeTask(src, split1, hi1, split2, hi2, dst, out2, threshold, stats));
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package sort;
+
+import java.util.Objects;
+
+/**
+ * 自然归并排序（TimSort 的做法）
+ * 从左到右找出已经有序的段（run），严格降序的段原地反转成升序，太短的段用二分插入排序补足到 minRun
+ * 段放入栈中，栈顶几个段的长度不满足约束时合并，保证合并是平衡的，最后把栈中剩下的段依次合并
+ * 合并前先用 galloping 去掉左段开头和右段结尾已经在正确位置的元素，再用 {@link MergeSort#gallopMerge} 合并
+ * 已排序或逆序的输入只有一个段，O(n) 完成且不分配内存；稳定排序
+ */
+public class NaturalMergeSort {
+    /**
+     * 长度小于该值时不做合并，直接用二分插入排序
+     */
+    private static final int MIN_MERGE = 32;
+    /**
+     * 段栈的最大深度，栈中段长度按斐波那契数列增长，int 范围内不会超过该值
+     */
+    private static final int MAX_STACK = 49;
+
+    private final int[] a;
+    private final int from;
+    private final int to;
+    /**
+     * 合并用的辅助空间，第一次合并时才分配
+     */
+    private int[] buffer;
+    private final int[] runBase = new int[MAX_STACK];
+    private final int[] runLength = new int[MAX_STACK];
+    private int stackSize;
+
+    private NaturalMergeSort(int[] a, int from, int to) {
+        this.a = a;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static void sort(int[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(int[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        int n = to - from;
+        if (n < 2) {
+            return;
+        }
+        if (n < MIN_MERGE) {
+            binaryInsertionSort(a, from, to, from + countRunAndMakeAscending(a, from, to));
+            return;
+        }
+        new NaturalMergeSort(a, from, to).sort();
+    }
+
+    private void sort() {
+        int minRun = minRunLength(to - from);
+        int lo = from;
+        while (lo < to) {
+            int length = countRunAndMakeAscending(a, lo, to);
+            if (length < minRun) {
+                int force = Math.min(minRun, to - lo);
+                binaryInsertionSort(a, lo, lo + force, lo + length);
+                length = force;
+            }
+            runBase[stackSize] = lo;
+            runLength[stackSize] = length;
+            stackSize++;
+            mergeCollapse();
+            lo += length;
+        }
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLength[n - 1] < runLength[n + 1]) {
+                n--;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * 合并栈顶的段，直到满足：
+     * runLength[i-2] > runLength[i-1] + runLength[i]，runLength[i-1] > runLength[i]
+     */
+    private void mergeCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if ((n > 0 && runLength[n - 1] <= runLength[n] + runLength[n + 1])
+                    || (n > 1 && runLength[n - 2] <= runLength[n] + runLength[n - 1])) {
+                if (runLength[n - 1] < runLength[n + 1]) {
+                    n--;
+                }
+            } else if (runLength[n] > runLength[n + 1]) {
+                break;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * 合并栈中第 i 和 i+1 个段
+     */
+    private void mergeAt(int i) {
+        int base1 = runBase[i];
+        int base2 = runBase[i + 1];
+        int end2 = base2 + runLength[i + 1];
+        runLength[i] += runLength[i + 1];
+        if (i == stackSize - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLength[i + 1] = runLength[i + 2];
+        }
+        stackSize--;
+
+        // 左段中不大于右段第一个元素的，已经在最终位置
+        base1 = MergeSort.gallop(a, base1, base2, a[base2], true);
+        if (base1 == base2) {
+            return;
+        }
+        // 右段中不小于左段最后一个元素的，已经在最终位置
+        end2 = MergeSort.gallop(a, base2, end2, a[base2 - 1], false);
+        if (end2 == base2) {
+            return;
+        }
+        int length = end2 - base1;
+        if (buffer == null) {
+            buffer = new int[to - from];
+        }
+        System.arraycopy(a, base1, buffer, 0, length);
+        MergeSort.gallopMerge(buffer, 0, base2 - base1, base2 - base1, length, a, base1);
+    }
+
+    /**
+     * 从 lo 开始的有序段的长度，严格降序的段反转为升序（不含相等元素，保持稳定）
+     */
+    private static int countRunAndMakeAscending(int[] a, int lo, int hi) {
+        int end = lo + 1;
+        if (end == hi) {
+            return 1;
+        }
+        if (a[end++] < a[lo]) {
+            while (end < hi && a[end] < a[end - 1]) {
+                end++;
+            }
+            reverse(a, lo, end);
+        } else {
+            while (end < hi && a[end] >= a[end - 1]) {
+                end++;
+            }
+        }
+        return end - lo;
+    }
+
+    private static void reverse(int[] a, int lo, int hi) {
+        hi--;
+        while (lo < hi) {
+            int tmp = a[lo];
+            a[lo++] = a[hi];
+            a[hi--] = tmp;
+        }
+    }
+
+    /**
+     * 二分插入排序，[lo, start) 已经有序
+     */
+    private static void binaryInsertionSort(int[] a, int lo, int hi, int start) {
+        for (int i = start; i < hi; i++) {
+            int key = a[i];
+            int left = lo;
+            int right = i;
+            // 找第一个大于 key 的位置，相等元素保持原顺序
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (key < a[mid]) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(a, left, a, left + 1, i - left);
+            a[left] = key;
+        }
+    }
+
+    /**
+     * 取 n 的最高 5 位，低位不全为 0 时加 1，使 n / minRun 接近但不超过 2 的幂，合并更平衡
+     */
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= n & 1;
+            n >>= 1;
+        }
+        return n + r;
+    }
+}
@@ -0,0 +1,100 @@
+package sort;
+
+import java.util.Objects;
+
+/**
+ * 部分排序：只需要前 k 个元素或第 k 个元素时，不必对整个数组排序
+ * select：快速选择，平均 O(n)
+ * topK：大小为 k 的最小堆，O(n log k)，只分配结果数组
+ * partialSort：快速选择后只对前 k 个元素排序，O(n + k log k)
+ */
+public class PartialSort {
+
+    /**
+     * 快速选择：返回从小到大第 k 个（从 0 开始）元素
+     * 返回后 a[k] 为该元素，a[0, k) 都不大于它，a(k, n) 都不小于它
+     * 用 {@link QuickSort#partition} 划分，分割值取三数中值；划分次数超过 2*log2(n) 时改用堆排序剩余区间，最坏 O(n log n)
+     */
+    public static int select(int[] a, int k) {
+        Objects.checkIndex(k, a.length);
+        int start = 0;
+        int end = a.length - 1;
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(a.length));
+        while (start < end) {
+            if (depthLimit-- == 0) {
+                HeapSort.sort(a, start, end + 1);
+                break;
+            }
+            // 三数中值放到 end，作为分割值
+            int mid = (start + end) >>> 1;
+            if (a[mid] < a[start]) {
+                swap(a, mid, start);
+            }
+            if (a[end] < a[start]) {
+                swap(a, end, start);
+            }
+            if (a[mid] < a[end]) {
+                swap(a, mid, end);
+            }
+            int p = QuickSort.partition(a, start, end);
+            if (p == k) {
+                break;
+            } else if (p < k) {
+                start = p + 1;
+            } else {
+                end = p - 1;
+            }
+        }
+        return a[k];
+    }
+
+    /**
+     * 返回最大的 k 个元素，按从大到小排列，不修改 a
+     * 用最小堆保存目前最大的 k 个元素，新元素大于堆顶时替换堆顶并调整
+     */
+    public static int[] topK(int[] a, int k) {
+        if (k < 0 || k > a.length) {
+            throw new IllegalArgumentException("k must be in [0, " + a.length + "]: " + k);
+        }
+        int[] heap = new int[k];
+        if (k == 0) {
+            return heap;
+        }
+        System.arraycopy(a, 0, heap, 0, k);
+        for (int i = k / 2 - 1; i >= 0; i--) {
+            HeapSort.adjustMinHeap(heap, 0, i, k);
+        }
+        for (int i = k; i < a.length; i++) {
+            if (a[i] > heap[0]) {
+                heap[0] = a[i];
+                HeapSort.adjustMinHeap(heap, 0, 0, k);
+            }
+        }
+        // 最小堆做堆排序，较小的依次放到末尾，得到从大到小的顺序
+        for (int i = k - 1; i > 0; i--) {
+            swap(heap, 0, i);
+            HeapSort.adjustMinHeap(heap, 0, 0, i);
+        }
+        return heap;
+    }
+
+    /**
+     * 把最小的 k 个元素按从小到大的顺序放到 a[0, k)，其余元素的顺序不确定
+     */
+    public static void partialSort(int[] a, int k) {
+        if (k < 0 || k > a.length) {
+            throw new IllegalArgumentException("k must be in [0, " + a.length + "]: " + k);
+        }
+        if (k == 0) {
+            return;
+        }
+        select(a, k - 1);
+        QuickSort.introSort(a, 0, k);
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+}
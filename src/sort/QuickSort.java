@@ -1,16 +1,432 @@
 package sort;
 
+import java.util.Comparator;
+import java.util.Objects;
+
 /**
  * 快速排序
  * 通过一趟排序将待排记录分隔成独立的两部分，其中一部分记录的关键字均比另一部分的关键字小，则可分别对这两部分记录继续进行排序，以达到整个序列有序
+ * 各种数组的 sort 都使用内省排序，不稳定，double 按 {@link Double#compare} 的顺序排序
+ * 原来以 a[end] 为分割值的 Lomuto 快速排序保留为 {@link #lomutoSort(int[])}，仅供对比
  */
 public class QuickSort {
+    /**
+     * 区间长度不超过该值时改用插入排序
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    /**
+     * 区间长度超过该值时用九数取中（ninther）选择分割值，否则用三数取中
+     */
+    private static final int NINTHER_THRESHOLD = 128;
 
     public static void sort(int[] a) {
-        quickSrot(a, 0, a.length - 1);
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序，与 long、double 等版本一样使用内省排序，有序或重复的数据不会退化
+     */
+    public static void sort(int[] a, int from, int to) {
+        introSort(a, from, to);
+    }
+
+    /**
+     * 内省排序：快速排序的递归深度超过 2*log2(n) 时改用堆排序，最坏时间复杂度 O(n log n)
+     * 三数/九数取中选择分割值，三路划分把等于分割值的元素集中在中间不再参与递归，小区间用插入排序
+     * 已排序、逆序、全部相等的输入都不会退化
+     */
+    public static void introSort(int[] a) {
+        introSort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间做内省排序
+     */
+    public static void introSort(int[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        introSort(a, from, to, depthLimit(to - from));
+    }
+
+    private static void introSort(int[] a, int from, int to, int depthLimit) {
+        if (SortStats.ENABLED) {
+            SortStats.enter();
+        }
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                HeapSort.sort(a, from, to);
+                if (SortStats.ENABLED) {
+                    SortStats.exit();
+                }
+                return;
+            }
+            int pivot = choosePivot(a, from, to - 1);
+            // 三路划分：[from, lt) 小于分割值，[lt, i) 等于，(gt, to-1] 大于
+            int lt = from;
+            int i = from;
+            int gt = to - 1;
+            while (i <= gt) {
+                if (SortStats.ENABLED) {
+                    SortStats.compare();
+                    if (a[i] >= pivot) {
+                        SortStats.compare();
+                    }
+                }
+                if (a[i] < pivot) {
+                    swap(a, lt++, i++);
+                } else if (a[i] > pivot) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            // 递归处理较短的一边，循环处理较长的一边，栈深度不超过 log2(n)
+            if (lt - from < to - gt - 1) {
+                introSort(a, from, lt, depthLimit);
+                from = gt + 1;
+            } else {
+                introSort(a, gt + 1, to, depthLimit);
+                to = lt;
+            }
+        }
+        InsertionSort.sort(a, from, to);
+        if (SortStats.ENABLED) {
+            SortStats.exit();
+        }
+    }
+
+    /**
+     * 选择分割值：三数取中，长区间用九数取中
+     */
+    static int choosePivot(int[] a, int start, int end) {
+        int mid = (start + end) >>> 1;
+        if (end - start > NINTHER_THRESHOLD) {
+            int step = (end - start) / 8;
+            return median(median(a[start], a[start + step], a[start + 2 * step]),
+                    median(a[mid - step], a[mid], a[mid + step]),
+                    median(a[end - 2 * step], a[end - step], a[end]));
+        }
+        return median(a[start], a[mid], a[end]);
+    }
+
+    private static int median(int x, int y, int z) {
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+
+    private static int depthLimit(int n) {
+        return 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, n)));
+    }
+
+    /**
+     * 按 keys 内省排序，payload 中的元素随对应的 key 一起交换，不稳定
+     *
+     * @param payload 长度与 keys 相同
+     */
+    public static void sortByKey(int[] keys, int[] payload) {
+        MergeSort.checkPayload(keys.length, payload.length);
+        sortByKey(keys, payload, null, 0, keys.length, depthLimit(keys.length));
+    }
+
+    /**
+     * 按 keys 内省排序，payload 中的元素随对应的 key 一起交换，不稳定
+     *
+     * @param payload 长度与 keys 相同
+     */
+    public static void sortByKey(int[] keys, long[] payload) {
+        MergeSort.checkPayload(keys.length, payload.length);
+        sortByKey(keys, null, payload, 0, keys.length, depthLimit(keys.length));
+    }
+
+    /**
+     * ints 和 longs 只有一个不为 null，交换 keys 时同时交换它
+     */
+    private static void sortByKey(int[] keys, int[] ints, long[] longs, int from, int to, int depthLimit) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                heapSortByKey(keys, ints, longs, from, to);
+                return;
+            }
+            int pivot = choosePivot(keys, from, to - 1);
+            int lt = from;
+            int i = from;
+            int gt = to - 1;
+            while (i <= gt) {
+                if (keys[i] < pivot) {
+                    swap(keys, ints, longs, lt++, i++);
+                } else if (keys[i] > pivot) {
+                    swap(keys, ints, longs, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (lt - from < to - gt - 1) {
+                sortByKey(keys, ints, longs, from, lt, depthLimit);
+                from = gt + 1;
+            } else {
+                sortByKey(keys, ints, longs, gt + 1, to, depthLimit);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && keys[j - 1] > keys[j]; j--) {
+                swap(keys, ints, longs, j - 1, j);
+            }
+        }
+    }
+
+    private static void heapSortByKey(int[] keys, int[] ints, long[] longs, int from, int to) {
+        int n = to - from;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            siftDownByKey(keys, ints, longs, from, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(keys, ints, longs, from, from + i);
+            siftDownByKey(keys, ints, longs, from, 0, i);
+        }
+    }
+
+    private static void siftDownByKey(int[] keys, int[] ints, long[] longs, int base, int i, int n) {
+        for (int k = i * 2 + 1; k < n; k = k * 2 + 1) {
+            if (k + 1 < n && keys[base + k] < keys[base + k + 1]) {
+                k++;
+            }
+            if (keys[base + k] <= keys[base + i]) {
+                break;
+            }
+            swap(keys, ints, longs, base + i, base + k);
+            i = k;
+        }
+    }
+
+    private static void swap(int[] keys, int[] ints, long[] longs, int i, int j) {
+        int key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        if (ints != null) {
+            int tmp = ints[i];
+            ints[i] = ints[j];
+            ints[j] = tmp;
+        } else {
+            long tmp = longs[i];
+            longs[i] = longs[j];
+            longs[j] = tmp;
+        }
+    }
+
+    public static void sort(long[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间做内省排序
+     */
+    public static void sort(long[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        introSort(a, from, to, depthLimit(to - from));
+    }
+
+    private static void introSort(long[] a, int from, int to, int depthLimit) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                HeapSort.sort(a, from, to);
+                return;
+            }
+            long pivot = choosePivot(a, from, to - 1);
+            int lt = from;
+            int i = from;
+            int gt = to - 1;
+            while (i <= gt) {
+                long x = a[i];
+                if (x < pivot) {
+                    a[i++] = a[lt];
+                    a[lt++] = x;
+                } else if (x > pivot) {
+                    a[i] = a[gt];
+                    a[gt--] = x;
+                } else {
+                    i++;
+                }
+            }
+            if (lt - from < to - gt - 1) {
+                introSort(a, from, lt, depthLimit);
+                from = gt + 1;
+            } else {
+                introSort(a, gt + 1, to, depthLimit);
+                to = lt;
+            }
+        }
+        InsertionSort.sort(a, from, to);
+    }
+
+    private static long choosePivot(long[] a, int start, int end) {
+        int mid = (start + end) >>> 1;
+        if (end - start > NINTHER_THRESHOLD) {
+            int step = (end - start) / 8;
+            return median(median(a[start], a[start + step], a[start + 2 * step]),
+                    median(a[mid - step], a[mid], a[mid + step]),
+                    median(a[end - 2 * step], a[end - step], a[end]));
+        }
+        return median(a[start], a[mid], a[end]);
+    }
+
+    private static long median(long x, long y, long z) {
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+
+    public static void sort(double[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间做内省排序
+     */
+    public static void sort(double[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        introSort(a, from, to, depthLimit(to - from));
+    }
+
+    private static void introSort(double[] a, int from, int to, int depthLimit) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                HeapSort.sort(a, from, to);
+                return;
+            }
+            double pivot = choosePivot(a, from, to - 1);
+            int lt = from;
+            int i = from;
+            int gt = to - 1;
+            while (i <= gt) {
+                double x = a[i];
+                int cmp = Double.compare(x, pivot);
+                if (cmp < 0) {
+                    a[i++] = a[lt];
+                    a[lt++] = x;
+                } else if (cmp > 0) {
+                    a[i] = a[gt];
+                    a[gt--] = x;
+                } else {
+                    i++;
+                }
+            }
+            if (lt - from < to - gt - 1) {
+                introSort(a, from, lt, depthLimit);
+                from = gt + 1;
+            } else {
+                introSort(a, gt + 1, to, depthLimit);
+                to = lt;
+            }
+        }
+        InsertionSort.sort(a, from, to);
+    }
+
+    private static double choosePivot(double[] a, int start, int end) {
+        int mid = (start + end) >>> 1;
+        if (end - start > NINTHER_THRESHOLD) {
+            int step = (end - start) / 8;
+            return median(median(a[start], a[start + step], a[start + 2 * step]),
+                    median(a[mid - step], a[mid], a[mid + step]),
+                    median(a[end - 2 * step], a[end - step], a[end]));
+        }
+        return median(a[start], a[mid], a[end]);
+    }
+
+    /**
+     * 按 {@link Double#compare} 取中位数，Math.min/max 对 -0.0 和 NaN 的处理与之不同，不能直接使用
+     */
+    private static double median(double x, double y, double z) {
+        if (Double.compare(x, y) > 0) {
+            double tmp = x;
+            x = y;
+            y = tmp;
+        }
+        if (Double.compare(y, z) <= 0) {
+            return y;
+        }
+        return Double.compare(x, z) > 0 ? x : z;
+    }
+
+    public static <T> void sort(T[] a, Comparator<? super T> c) {
+        sort(a, 0, a.length, c);
+    }
+
+    /**
+     * 对 [from, to) 区间做内省排序
+     */
+    public static <T> void sort(T[] a, int from, int to, Comparator<? super T> c) {
+        Objects.checkFromToIndex(from, to, a.length);
+        introSort(a, from, to, depthLimit(to - from), c);
+    }
+
+    private static <T> void introSort(T[] a, int from, int to, int depthLimit, Comparator<? super T> c) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit-- == 0) {
+                HeapSort.sort(a, from, to, c);
+                return;
+            }
+            T pivot = choosePivot(a, from, to - 1, c);
+            int lt = from;
+            int i = from;
+            int gt = to - 1;
+            while (i <= gt) {
+                T x = a[i];
+                int cmp = c.compare(x, pivot);
+                if (cmp < 0) {
+                    a[i++] = a[lt];
+                    a[lt++] = x;
+                } else if (cmp > 0) {
+                    a[i] = a[gt];
+                    a[gt--] = x;
+                } else {
+                    i++;
+                }
+            }
+            if (lt - from < to - gt - 1) {
+                introSort(a, from, lt, depthLimit, c);
+                from = gt + 1;
+            } else {
+                introSort(a, gt + 1, to, depthLimit, c);
+                to = lt;
+            }
+        }
+        InsertionSort.sort(a, from, to, c);
+    }
+
+    private static <T> T choosePivot(T[] a, int start, int end, Comparator<? super T> c) {
+        int mid = (start + end) >>> 1;
+        if (end - start > NINTHER_THRESHOLD) {
+            int step = (end - start) / 8;
+            return median(median(a[start], a[start + step], a[start + 2 * step], c),
+                    median(a[mid - step], a[mid], a[mid + step], c),
+                    median(a[end - 2 * step], a[end - step], a[end], c), c);
+        }
+        return median(a[start], a[mid], a[end], c);
+    }
+
+    private static <T> T median(T x, T y, T z, Comparator<? super T> c) {
+        if (c.compare(x, y) > 0) {
+            T tmp = x;
+            x = y;
+            y = tmp;
+        }
+        if (c.compare(y, z) <= 0) {
+            return y;
+        }
+        return c.compare(x, z) > 0 ? x : z;
+    }
+
+    /**
+     * 原始的 Lomuto 快速排序：以最后一个元素为分割值，没有递归深度限制
+     * 有序、逆序和重复数据上退化为 O(n^2)，递归深度为 n，几十万个元素就会栈溢出，只用于和内省排序对比
+     */
+    public static void lomutoSort(int[] a) {
+        if (a.length > 1) {
+            quickSrot(a, 0, a.length - 1);
+        }
     }
 
     private static void quickSrot(int[] a, int start, int end) {
+        if (SortStats.ENABLED) {
+            SortStats.enter();
+        }
         int smallInedx = partition(a, start, end);
         if (smallInedx-1 > start) {
             quickSrot(a, start, smallInedx - 1);
@@ -18,12 +434,18 @@ public class QuickSort {
         if (smallInedx+1 < end) {
             quickSrot(a, smallInedx + 1, end);
         }
+        if (SortStats.ENABLED) {
+            SortStats.exit();
+        }
     }
 
-    //分割数组为较大和较小两部分
-    private static int partition(int[] a, int start, int end) {
+    //分割数组为较大和较小两部分，以 a[end] 为分割值，返回分割值最终的位置
+    static int partition(int[] a, int start, int end) {
         int smallIndex = start - 1;
         for (int i = start; i <= end; i++) {
+            if (SortStats.ENABLED) {
+                SortStats.compare();
+            }
             if (a[i] <= a[end]) {
                 smallIndex++;
                 if (i > smallIndex) {
@@ -37,6 +459,9 @@ public class QuickSort {
     }
 
     private static void swap(int[] a, int i, int j) {
+        if (SortStats.ENABLED) {
+            SortStats.swap();
+        }
         int tmp = a[i];
         a[i] = a[j];
         a[j] = tmp;
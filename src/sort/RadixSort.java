@@ -0,0 +1,189 @@
+package sort;
+
+/**
+ * 基数排序（LSD，低位优先）
+ * 每次按一个字节（8位）做计数排序，从最低字节到最高字节，int 需要4趟，long 需要8趟，每趟都是稳定的
+ * 先一次遍历统计出所有字节的计数，某个字节在所有元素中都相同时跳过这一趟
+ * 有符号整数：最高字节的符号位取反，负数排在前面
+ * 浮点数：按 IEEE-754 位模式转换，负数所有位取反、非负数符号位取反，转换后按无符号整数排序即为数值顺序，
+ * 与 Arrays.sort 一致：-0.0 在 0.0 之前，NaN 在最后
+ */
+public class RadixSort {
+    /**
+     * 元素个数小于该值时改用插入排序
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 64;
+    private static final int RADIX = 256;
+
+    public static void sort(int[] a) {
+        if (a.length < INSERTION_SORT_THRESHOLD) {
+            InsertionSort.sort(a);
+            return;
+        }
+        sort(a, new int[a.length]);
+    }
+
+    /**
+     * @param a      待排序数组，结果写回 a
+     * @param buffer 辅助空间，长度不小于 a.length，可以在多次调用间重复使用
+     */
+    public static void sort(int[] a, int[] buffer) {
+        checkBuffer(buffer.length, a.length);
+        radixSort(a, a.length, buffer, 0x80);
+    }
+
+    public static void sort(long[] a) {
+        sort(a, new long[a.length]);
+    }
+
+    /**
+     * @param a      待排序数组，结果写回 a
+     * @param buffer 辅助空间，长度不小于 a.length，可以在多次调用间重复使用
+     */
+    public static void sort(long[] a, long[] buffer) {
+        checkBuffer(buffer.length, a.length);
+        radixSort(a, a.length, buffer, 0x80);
+    }
+
+    public static void sort(float[] a) {
+        sort(a, new int[a.length], new int[a.length]);
+    }
+
+    /**
+     * @param a      待排序数组，结果写回 a
+     * @param keys   存放转换后的键，长度不小于 a.length
+     * @param buffer 辅助空间，长度不小于 a.length
+     */
+    public static void sort(float[] a, int[] keys, int[] buffer) {
+        int n = a.length;
+        checkBuffer(keys.length, n);
+        checkBuffer(buffer.length, n);
+        for (int i = 0; i < n; i++) {
+            // floatToIntBits 把所有 NaN 统一为同一个值
+            int bits = Float.floatToIntBits(a[i]);
+            keys[i] = bits ^ ((bits >> 31) | 0x80000000);
+        }
+        radixSort(keys, n, buffer, 0);
+        for (int i = 0; i < n; i++) {
+            int key = keys[i];
+            a[i] = Float.intBitsToFloat(key < 0 ? key ^ 0x80000000 : ~key);
+        }
+    }
+
+    public static void sort(double[] a) {
+        sort(a, new long[a.length], new long[a.length]);
+    }
+
+    /**
+     * @param a      待排序数组，结果写回 a
+     * @param keys   存放转换后的键，长度不小于 a.length
+     * @param buffer 辅助空间，长度不小于 a.length
+     */
+    public static void sort(double[] a, long[] keys, long[] buffer) {
+        int n = a.length;
+        checkBuffer(keys.length, n);
+        checkBuffer(buffer.length, n);
+        for (int i = 0; i < n; i++) {
+            long bits = Double.doubleToLongBits(a[i]);
+            keys[i] = bits ^ ((bits >> 63) | 0x8000000000000000L);
+        }
+        radixSort(keys, n, buffer, 0);
+        for (int i = 0; i < n; i++) {
+            long key = keys[i];
+            a[i] = Double.longBitsToDouble(key < 0 ? key ^ 0x8000000000000000L : ~key);
+        }
+    }
+
+    /**
+     * 对 a[0, n) 排序
+     *
+     * @param topFlip 与最高字节异或的值：有符号为 0x80，无符号为 0
+     */
+    private static void radixSort(int[] a, int n, int[] buffer, int topFlip) {
+        if (n < 2) {
+            return;
+        }
+        int[] counts = new int[4 * RADIX];
+        for (int i = 0; i < n; i++) {
+            int x = a[i];
+            counts[x & 0xff]++;
+            counts[RADIX + ((x >>> 8) & 0xff)]++;
+            counts[2 * RADIX + ((x >>> 16) & 0xff)]++;
+            counts[3 * RADIX + ((x >>> 24) ^ topFlip)]++;
+        }
+        int[] src = a;
+        int[] dst = buffer;
+        for (int d = 0; d < 4; d++) {
+            int shift = d * 8;
+            int flip = d == 3 ? topFlip : 0;
+            int base = d * RADIX;
+            // 所有元素这个字节都相同，跳过
+            if (counts[base + (((src[0] >>> shift) & 0xff) ^ flip)] == n) {
+                continue;
+            }
+            // 计数转为起始位置
+            int sum = 0;
+            for (int i = base; i < base + RADIX; i++) {
+                int count = counts[i];
+                counts[i] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < n; i++) {
+                int x = src[i];
+                dst[counts[base + (((x >>> shift) & 0xff) ^ flip)]++] = x;
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    private static void radixSort(long[] a, int n, long[] buffer, int topFlip) {
+        if (n < 2) {
+            return;
+        }
+        int[] counts = new int[8 * RADIX];
+        for (int i = 0; i < n; i++) {
+            long x = a[i];
+            for (int d = 0; d < 7; d++) {
+                counts[d * RADIX + (int) ((x >>> (d * 8)) & 0xff)]++;
+            }
+            counts[7 * RADIX + ((int) (x >>> 56) ^ topFlip)]++;
+        }
+        long[] src = a;
+        long[] dst = buffer;
+        for (int d = 0; d < 8; d++) {
+            int shift = d * 8;
+            int flip = d == 7 ? topFlip : 0;
+            int base = d * RADIX;
+            if (counts[base + ((int) ((src[0] >>> shift) & 0xff) ^ flip)] == n) {
+                continue;
+            }
+            int sum = 0;
+            for (int i = base; i < base + RADIX; i++) {
+                int count = counts[i];
+                counts[i] = sum;
+                sum += count;
+            }
+            for (int i = 0; i < n; i++) {
+                long x = src[i];
+                dst[counts[base + ((int) ((x >>> shift) & 0xff) ^ flip)]++] = x;
+            }
+            long[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    private static void checkBuffer(int bufferLength, int length) {
+        if (bufferLength < length) {
+            throw new IllegalArgumentException("buffer length must be at least " + length + ": " + bufferLength);
+        }
+    }
+}
@@ -0,0 +1,544 @@
+package sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 并行样本排序，原地进行（IPS4o 的做法），辅助空间只有每个任务每个桶一块缓冲，不超过 n / AUX_FRACTION
+ * 1. 随机抽取 k * OVERSAMPLING 个样本排序，等间隔取 k-1 个分割值，组成隐式二叉搜索树；
+ *    分割值有重复时说明重复元素很多，为每个分割值增加一个相等桶，相等桶中的元素不需要再排序
+ * 2. 分类：数组分成若干段并行处理，每个任务为每个桶准备一块 BLOCK_SIZE 的缓冲，缓冲满了就整块写回本段已经读过的位置，
+ *    处理完后每段的前面是一个个只含一个桶的满块，缓冲中剩下不满一块的元素
+ * 3. 块置换：按桶的大小算出每个桶的区域（按块对齐），各个任务并行地取出不在自己桶区域中的块，放到目标桶的下一个位置，
+ *    被换出的块继续放置；每个桶的读写位置用原子变量维护，只移动整块
+ * 4. 收尾：把每个桶跨出区域的部分和缓冲中剩下的元素放到桶的空位上，然后各个桶并行地用 {@link QuickSort#introSort} 排序
+ * 只有第 3 步开始前整理空块的一小步在一个线程中执行，移动的元素不超过辅助空间的大小
+ */
+public class SampleSort {
+    /**
+     * 不超过该长度时直接在当前线程中内省排序
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+    /**
+     * 每个桶平均的元素个数至少为该值
+     */
+    private static final int MIN_BUCKET_SIZE = 1 << 13;
+    /**
+     * 分割值最多为 MAX_SPLITTER_BUCKETS - 1 个，加上相等桶后桶数不超过 2 * MAX_SPLITTER_BUCKETS - 1
+     */
+    private static final int MAX_SPLITTER_BUCKETS = 128;
+    /**
+     * 每个分割值对应的样本数，越大分割越均匀
+     */
+    private static final int OVERSAMPLING = 16;
+    /**
+     * 块的元素个数，分类和置换都按块移动
+     */
+    private static final int BLOCK_SIZE = 256;
+    /**
+     * 各任务的缓冲加上收尾用的缓冲不超过 n / AUX_FRACTION
+     */
+    private static final int AUX_FRACTION = 8;
+
+    public static void parallelSort(int[] a) {
+        parallelSort(a, ForkJoinPool.commonPool());
+    }
+
+    public static void parallelSort(int[] a, ForkJoinPool pool) {
+        parallelSort(a, 0, a.length, pool);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void parallelSort(int[] a, int from, int to, ForkJoinPool pool) {
+        Objects.checkFromToIndex(from, to, a.length);
+        int n = to - from;
+        if (n <= SEQUENTIAL_THRESHOLD) {
+            QuickSort.introSort(a, from, to);
+            return;
+        }
+        int splitterBuckets = Math.min(MAX_SPLITTER_BUCKETS, Integer.highestOneBit(n / MIN_BUCKET_SIZE));
+        Classifier classifier = Classifier.sample(a, from, to, splitterBuckets);
+        // 每个任务 k 块缓冲，收尾再用 k 块
+        int maxTasks = n / (AUX_FRACTION * classifier.buckets * BLOCK_SIZE) - 1;
+        int tasks = Math.max(1, Math.min(pool.getParallelism(), maxTasks));
+        new Distribution(a, from, to, classifier, tasks).run(pool);
+    }
+
+    private static void invokeAll(ForkJoinPool pool, List<ForkJoinTask<?>> tasks) {
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    private static int roundUp(int x) {
+        return (x + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    /**
+     * 分割值组成的隐式二叉搜索树，以及元素到桶的映射
+     */
+    private static final class Classifier {
+        /**
+         * tree[i] 的左右子节点为 tree[2i]、tree[2i+1]，tree[0] 不用
+         */
+        private final int[] tree;
+        private final int log;
+        /**
+         * 去重后的分割值，升序
+         */
+        private final int[] splitters;
+        private final boolean equality;
+        final int buckets;
+
+        private Classifier(int[] tree, int log, int[] splitters, boolean equality) {
+            this.tree = tree;
+            this.log = log;
+            this.splitters = splitters;
+            this.equality = equality;
+            this.buckets = equality ? 2 * splitters.length + 1 : splitters.length + 1;
+        }
+
+        /**
+         * 抽样并选出 splitterBuckets-1 个分割值，去掉重复的值；有重复时启用相等桶
+         */
+        static Classifier sample(int[] a, int from, int to, int splitterBuckets) {
+            if (SortStats.ENABLED) {
+                SortStats.allocate(4L * (splitterBuckets * (OVERSAMPLING + 2)));
+            }
+            int[] sample = new int[splitterBuckets * OVERSAMPLING];
+            SplittableRandom random = new SplittableRandom(to - from);
+            for (int i = 0; i < sample.length; i++) {
+                sample[i] = a[random.nextInt(from, to)];
+            }
+            QuickSort.introSort(sample);
+            int[] unique = new int[splitterBuckets - 1];
+            int m = 0;
+            boolean duplicate = false;
+            for (int i = 0; i < unique.length; i++) {
+                int s = sample[(i + 1) * OVERSAMPLING - 1];
+                if (m > 0 && s == unique[m - 1]) {
+                    duplicate = true;
+                } else {
+                    unique[m++] = s;
+                }
+            }
+            int[] splitters = Arrays.copyOf(unique, m);
+            // 补齐到 2^log - 1 个，补的值等于最大的分割值，不影响查找结果
+            int log = 32 - Integer.numberOfLeadingZeros(m);
+            int[] padded = Arrays.copyOf(splitters, (1 << log) - 1);
+            Arrays.fill(padded, m, padded.length, splitters[m - 1]);
+            int[] tree = new int[1 << log];
+            buildTree(tree, 1, padded, 0, padded.length);
+            return new Classifier(tree, log, splitters, duplicate);
+        }
+
+        private static void buildTree(int[] tree, int node, int[] splitters, int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            tree[node] = splitters[mid];
+            buildTree(tree, 2 * node, splitters, lo, mid);
+            buildTree(tree, 2 * node + 1, splitters, mid + 1, hi);
+        }
+
+        /**
+         * 元素所在的桶：不大于第 i 个分割值的元素属于桶 i，树的每一层一次比较，没有分支
+         * 启用相等桶时，桶 i 变为 2i，等于第 i 个分割值的元素属于桶 2i+1
+         */
+        int classify(int x) {
+            int node = 1;
+            for (int level = 0; level < log; level++) {
+                node = 2 * node + (x > tree[node] ? 1 : 0);
+            }
+            int b = Math.min(node - tree.length, splitters.length);
+            if (SortStats.ENABLED) {
+                SortStats.compare(equality && b < splitters.length ? log + 1 : log);
+            }
+            if (equality) {
+                b = b < splitters.length && x == splitters[b] ? 2 * b + 1 : 2 * b;
+            }
+            return b;
+        }
+
+        /**
+         * 相等桶中的元素都相等，不需要排序
+         */
+        boolean isEqualityBucket(int bucket) {
+            return equality && (bucket & 1) == 1;
+        }
+    }
+
+    /**
+     * 一个分类任务处理的段 [lo, hi)，位置相对于 from
+     * 分类后 [lo, write) 是满块，buffer 中第 b 块的前 partial[b] 个元素是桶 b 剩下的元素
+     */
+    private static final class Stripe {
+        final int lo;
+        final int hi;
+        final int[] buffer;
+        final int[] partial;
+        final int[] count;
+        int write;
+
+        Stripe(int lo, int hi, int buckets) {
+            if (SortStats.ENABLED) {
+                SortStats.allocate(4L * buckets * (BLOCK_SIZE + 2));
+            }
+            this.lo = lo;
+            this.hi = hi;
+            this.buffer = new int[buckets * BLOCK_SIZE];
+            this.partial = new int[buckets];
+            this.count = new int[buckets];
+        }
+    }
+
+    /**
+     * 一次排序的状态，位置都相对于 from
+     */
+    private static final class Distribution {
+        private final int[] a;
+        private final int from;
+        private final int n;
+        private final Classifier classifier;
+        private final int k;
+        private final int tasks;
+        private final int stripeSize;
+        private final Stripe[] stripes;
+        /**
+         * 桶 j 最终的范围是 [bucketStart[j], bucketStart[j+1])
+         */
+        private final int[] bucketStart;
+        /**
+         * 桶 j 的块区域是 [blockStart[j], blockStart[j+1])，按块对齐
+         */
+        private final int[] blockStart;
+        /**
+         * 每个桶的写位置 w（高 32 位）和未处理块的结束位置 e（低 32 位），单位为块：
+         * 区域中 w 之前的块已经属于这个桶，[w, e) 是还没处理的满块，e 之后是空位
+         */
+        private final AtomicLongArray pointers;
+        /**
+         * 每个桶正在被读取的块数，写入空位前要等读取完成
+         */
+        private final AtomicIntegerArray readers;
+        /**
+         * n 不是块大小的整数倍时，最后一个块区域有一部分在数组之外，写到这里
+         */
+        private final int[] overflow = new int[BLOCK_SIZE];
+        private int overflowBucket = -1;
+        /**
+         * 调用 parallelSort 的线程的统计，未开启统计时为 null
+         */
+        private final SortStats stats = SortStats.current();
+
+        Distribution(int[] a, int from, int to, Classifier classifier, int tasks) {
+            this.a = a;
+            this.from = from;
+            this.n = to - from;
+            this.classifier = classifier;
+            this.k = classifier.buckets;
+            this.tasks = tasks;
+            this.stripeSize = roundUp((n + tasks - 1) / tasks);
+            this.stripes = new Stripe[(n + stripeSize - 1) / stripeSize];
+            for (int s = 0; s < stripes.length; s++) {
+                stripes[s] = new Stripe(s * stripeSize, Math.min((s + 1) * stripeSize, n), k);
+            }
+            this.bucketStart = new int[k + 1];
+            this.blockStart = new int[k + 1];
+            this.pointers = new AtomicLongArray(k);
+            this.readers = new AtomicIntegerArray(k);
+            if (SortStats.ENABLED) {
+                SortStats.allocate(4L * (BLOCK_SIZE + 2 * (k + 1)) + 12L * k);
+            }
+        }
+
+        /**
+         * 开启统计时，任务中的计数汇总到调用线程的统计
+         */
+        private ForkJoinTask<?> task(Runnable body) {
+            Runnable run = SortStats.ENABLED ? () -> SortStats.collect(stats, body) : body;
+            return ForkJoinTask.adapt(run);
+        }
+
+        void run(ForkJoinPool pool) {
+            List<ForkJoinTask<?>> classify = new ArrayList<>(stripes.length);
+            for (Stripe stripe : stripes) {
+                classify.add(task(() -> classify(stripe)));
+            }
+            invokeAll(pool, classify);
+
+            for (int b = 0; b < k; b++) {
+                int size = 0;
+                for (Stripe stripe : stripes) {
+                    size += stripe.count[b];
+                }
+                bucketStart[b + 1] = bucketStart[b] + size;
+                blockStart[b] = roundUp(bucketStart[b]);
+            }
+            blockStart[k] = roundUp(n);
+            for (int b = 0; b < k; b++) {
+                compactBlocks(b);
+            }
+
+            List<ForkJoinTask<?>> permute = new ArrayList<>(tasks);
+            for (int t = 0; t < tasks; t++) {
+                int first = (int) ((long) t * k / tasks);
+                permute.add(task(() -> permute(first)));
+            }
+            invokeAll(pool, permute);
+
+            int[] overhang = saveOverhangs();
+            List<ForkJoinTask<?>> finish = new ArrayList<>(k);
+            for (int b = 0; b < k; b++) {
+                int bucket = b;
+                finish.add(task(() -> finishBucket(bucket, overhang)));
+            }
+            invokeAll(pool, finish);
+        }
+
+        /**
+         * 第 2 步：分类一段，满块写回本段开头，写位置始终不超过读位置
+         */
+        private void classify(Stripe stripe) {
+            int[] buffer = stripe.buffer;
+            int[] partial = stripe.partial;
+            int[] count = stripe.count;
+            int write = stripe.lo;
+            for (int i = stripe.lo; i < stripe.hi; i++) {
+                int x = a[from + i];
+                int b = classifier.classify(x);
+                int p = partial[b];
+                buffer[b * BLOCK_SIZE + p] = x;
+                if (p + 1 == BLOCK_SIZE) {
+                    System.arraycopy(buffer, b * BLOCK_SIZE, a, from + write, BLOCK_SIZE);
+                    write += BLOCK_SIZE;
+                    partial[b] = 0;
+                } else {
+                    partial[b] = p + 1;
+                }
+                count[b]++;
+            }
+            stripe.write = write;
+            if (SortStats.ENABLED) {
+                SortStats.move(stripe.hi - stripe.lo + write - stripe.lo);
+            }
+        }
+
+        /**
+         * 分类后位置 p 开始的块是否是满块
+         */
+        private boolean isFull(int p) {
+            return p + BLOCK_SIZE <= n && p < stripes[p / stripeSize].write;
+        }
+
+        /**
+         * 把桶 b 区域中的满块移到区域开头，空块留在后面，并初始化读写位置
+         * 每段最后的空块不超过 k 个，需要移动的块很少
+         */
+        private void compactBlocks(int b) {
+            int lo = blockStart[b];
+            int hi = blockStart[b + 1];
+            int full = 0;
+            for (int p = lo; p < hi; p += BLOCK_SIZE) {
+                if (isFull(p)) {
+                    full++;
+                }
+            }
+            int end = lo + full * BLOCK_SIZE;
+            int right = hi - BLOCK_SIZE;
+            for (int p = lo; p < end; p += BLOCK_SIZE) {
+                if (!isFull(p)) {
+                    while (!isFull(right)) {
+                        right -= BLOCK_SIZE;
+                    }
+                    System.arraycopy(a, from + right, a, from + p, BLOCK_SIZE);
+                    right -= BLOCK_SIZE;
+                    if (SortStats.ENABLED) {
+                        SortStats.move(BLOCK_SIZE);
+                    }
+                }
+            }
+            pointers.set(b, (long) (lo / BLOCK_SIZE) << 32 | (end / BLOCK_SIZE));
+        }
+
+        /**
+         * 第 3 步：从 first 开始依次处理每个桶，取出它还没处理的块，放到块所属桶的写位置；
+         * 写位置上是还没处理的块时把它换出来继续放置，是空位时放下后再取下一块
+         */
+        private void permute(int first) {
+            if (SortStats.ENABLED) {
+                SortStats.allocate(8L * BLOCK_SIZE);
+            }
+            int[] buffer = new int[BLOCK_SIZE];
+            int[] swap = new int[BLOCK_SIZE];
+            for (int step = 0; step < k; step++) {
+                int primary = (first + step) % k;
+                while (readBlock(primary, buffer)) {
+                    while (true) {
+                        int dest = classifier.classify(buffer[0]);
+                        long state = pointers.getAndAdd(dest, 1L << 32);
+                        int w = (int) (state >>> 32);
+                        int e = (int) state;
+                        int p = w * BLOCK_SIZE;
+                        if (SortStats.ENABLED) {
+                            SortStats.move(w < e ? 2 * BLOCK_SIZE : BLOCK_SIZE);
+                        }
+                        if (w < e) {
+                            System.arraycopy(a, from + p, swap, 0, BLOCK_SIZE);
+                            System.arraycopy(buffer, 0, a, from + p, BLOCK_SIZE);
+                            int[] tmp = buffer;
+                            buffer = swap;
+                            swap = tmp;
+                            continue;
+                        }
+                        // 空位上原来的块可能还在被其它任务读取
+                        while (readers.get(dest) != 0) {
+                            Thread.onSpinWait();
+                        }
+                        if (p + BLOCK_SIZE > n) {
+                            System.arraycopy(buffer, 0, overflow, 0, BLOCK_SIZE);
+                            overflowBucket = dest;
+                        } else {
+                            System.arraycopy(buffer, 0, a, from + p, BLOCK_SIZE);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 取出桶 bucket 最后一个还没处理的块
+         *
+         * @return 没有可取的块时返回 false
+         */
+        private boolean readBlock(int bucket, int[] buffer) {
+            readers.incrementAndGet(bucket);
+            try {
+                long state;
+                int e;
+                do {
+                    state = pointers.get(bucket);
+                    e = (int) state;
+                    if (e <= (int) (state >>> 32)) {
+                        return false;
+                    }
+                } while (!pointers.compareAndSet(bucket, state, state - 1));
+                System.arraycopy(a, from + (e - 1) * BLOCK_SIZE, buffer, 0, BLOCK_SIZE);
+                if (SortStats.ENABLED) {
+                    SortStats.move(BLOCK_SIZE);
+                }
+                return true;
+            } finally {
+                readers.decrementAndGet(bucket);
+            }
+        }
+
+        /**
+         * 桶 b 的块区域从 blockStart[b] 到块结束位置为止
+         */
+        private int blockEnd(int b) {
+            return (int) (pointers.get(b) >>> 32) * BLOCK_SIZE;
+        }
+
+        /**
+         * 第 4 步之前：每个桶的最后一块可能越过桶的最终范围，落在下一个桶的开头，先把越过的部分保存下来，
+         * 每个桶最多 BLOCK_SIZE 个，保存在返回数组的第 b 块中
+         */
+        private int[] saveOverhangs() {
+            int overflowStart = roundUp(n) - BLOCK_SIZE;
+            if (overflowBucket >= 0) {
+                System.arraycopy(overflow, 0, a, from + overflowStart, n - overflowStart);
+                if (SortStats.ENABLED) {
+                    SortStats.move(n - overflowStart);
+                }
+            }
+            if (SortStats.ENABLED) {
+                SortStats.allocate(4L * k * BLOCK_SIZE);
+            }
+            int[] overhang = new int[k * BLOCK_SIZE];
+            for (int b = 0; b < k; b++) {
+                int lo = Math.max(bucketStart[b + 1], blockStart[b]);
+                int hi = blockEnd(b);
+                int inArray = Math.min(hi, n);
+                if (lo < inArray) {
+                    System.arraycopy(a, from + lo, overhang, b * BLOCK_SIZE, inArray - lo);
+                }
+                if (hi > n) {
+                    int start = Math.max(lo, n);
+                    System.arraycopy(overflow, start - overflowStart, overhang, b * BLOCK_SIZE + start - lo, hi - start);
+                }
+                if (SortStats.ENABLED && hi > lo) {
+                    SortStats.move(hi - lo);
+                }
+            }
+            return overhang;
+        }
+
+        /**
+         * 第 4 步：桶的最终范围中，块区域之前（开头）和块结束位置之后（末尾）是空位，
+         * 依次放入越过的部分和各段缓冲中剩下的元素，然后排序
+         */
+        private void finishBucket(int b, int[] overhang) {
+            int lo = bucketStart[b];
+            int hi = bucketStart[b + 1];
+            int end = blockEnd(b);
+            Filler filler = new Filler(lo, Math.min(blockStart[b], hi), end, hi);
+            filler.put(overhang, b * BLOCK_SIZE, Math.max(0, end - Math.max(hi, blockStart[b])));
+            for (Stripe stripe : stripes) {
+                filler.put(stripe.buffer, b * BLOCK_SIZE, stripe.partial[b]);
+            }
+            if (!classifier.isEqualityBucket(b) && hi - lo > 1) {
+                QuickSort.introSort(a, from + lo, from + hi);
+            }
+        }
+
+        /**
+         * 依次写入两段空位 [pos, limit) 和 [tail, tailEnd)
+         */
+        private final class Filler {
+            private int pos;
+            private int limit;
+            private final int tail;
+            private final int tailEnd;
+
+            Filler(int pos, int limit, int tail, int tailEnd) {
+                this.pos = pos;
+                this.limit = limit;
+                this.tail = tail;
+                this.tailEnd = tailEnd;
+            }
+
+            void put(int[] src, int offset, int length) {
+                if (SortStats.ENABLED) {
+                    SortStats.move(length);
+                }
+                while (length > 0) {
+                    if (pos == limit) {
+                        pos = tail;
+                        limit = tailEnd;
+                    }
+                    int count = Math.min(length, limit - pos);
+                    System.arraycopy(src, offset, a, from + pos, count);
+                    pos += count;
+                    offset += count;
+                    length -= count;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package sort;
+
+/**
+ * 排序过程的统计：比较次数、交换次数、移动（赋值）次数、最大递归深度、分配的辅助空间字节数
+ * 启动时加上 -Dsort.stats=true 开启；未开启时 {@link #ENABLED} 为常量 false，各个排序中的统计代码被 JIT 整体去掉，没有任何开销
+ * 计数按线程保存，{@link #measure(Runnable)} 统计一次调用；并行排序的任务在创建时记下调用线程的统计，
+ * 在工作线程中单独计数，任务结束时汇总回去，因此 measure 得到的是所有线程的合计
+ *
+ * 统计范围（不在范围内的排序调用不会出错，只是计数为 0）：
+ * 1. int[] 版本的 InsertionSort、HeapSort、QuickSort（sort 与 introSort）、MergeSort（sort、bottomUp、parallelSort）
+ *    和 SampleSort.parallelSort
+ * 2. Comparable / Comparator 版本、其它排序类（BubbleSort、SelectionSort、RadixSort 等）和 VectorSort 的向量化分区不统计
+ * 3. 并行排序的最大递归深度取各个任务中最深的一个，不包括任务本身的拆分层数
+ */
+public final class SortStats {
+    static final boolean ENABLED = Boolean.getBoolean("sort.stats");
+    private static final ThreadLocal<SortStats> CURRENT = ThreadLocal.withInitial(SortStats::new);
+
+    private long comparisons;
+    private long swaps;
+    private long moves;
+    private int depth;
+    private int maxDepth;
+    private long allocatedBytes;
+
+    private SortStats() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 清零当前线程的计数，执行 task，返回这期间的统计
+     * task 中调用的并行排序（MergeSort.parallelSort、SampleSort.parallelSort）在线程池中执行的部分也计入；
+     * task 自己启动的其它线程不计入，统计范围见类的说明
+     *
+     * @throws IllegalStateException 没有开启统计
+     */
+    public static SortStats measure(Runnable task) {
+        if (!ENABLED) {
+            throw new IllegalStateException("sort stats disabled, run with -Dsort.stats=true");
+        }
+        SortStats stats = new SortStats();
+        SortStats previous = CURRENT.get();
+        CURRENT.set(stats);
+        try {
+            task.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+        return stats;
+    }
+
+    /**
+     * 当前线程正在使用的统计，并行排序的任务在创建时取得，传给 {@link #collect}；未开启统计时返回 null
+     */
+    static SortStats current() {
+        return ENABLED ? CURRENT.get() : null;
+    }
+
+    /**
+     * 在当前线程（通常是线程池的工作线程）中执行任务的一部分，计数单独保存，结束后加到 sink 上
+     * 多个工作线程可能同时汇总到同一个 sink
+     */
+    static void collect(SortStats sink, Runnable body) {
+        SortStats stats = new SortStats();
+        SortStats previous = CURRENT.get();
+        CURRENT.set(stats);
+        try {
+            body.run();
+        } finally {
+            CURRENT.set(previous);
+            sink.add(stats);
+        }
+    }
+
+    private synchronized void add(SortStats other) {
+        comparisons += other.comparisons;
+        swaps += other.swaps;
+        moves += other.moves;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        allocatedBytes += other.allocatedBytes;
+    }
+
+    static void compare() {
+        CURRENT.get().comparisons++;
+    }
+
+    static void compare(int count) {
+        CURRENT.get().comparisons += count;
+    }
+
+    static void swap() {
+        CURRENT.get().swaps++;
+    }
+
+    static void move(int count) {
+        CURRENT.get().moves += count;
+    }
+
+    static void enter() {
+        SortStats stats = CURRENT.get();
+        if (++stats.depth > stats.maxDepth) {
+            stats.maxDepth = stats.depth;
+        }
+    }
+
+    static void exit() {
+        CURRENT.get().depth--;
+    }
+
+    static void allocate(long bytes) {
+        CURRENT.get().allocatedBytes += bytes;
+    }
+
+    public long comparisons() {
+        return comparisons;
+    }
+
+    public long swaps() {
+        return swaps;
+    }
+
+    /**
+     * 不属于交换的单个元素赋值次数，如插入排序的后移、归并的写出
+     */
+    public long moves() {
+        return moves;
+    }
+
+    public int maxRecursionDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * 排序内部分配的辅助数组的字节数
+     */
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "sortStats {comparisons=" + comparisons
+                + ", swaps=" + swaps
+                + ", moves=" + moves
+                + ", maxRecursionDepth=" + maxDepth
+                + ", allocatedBytes=" + allocatedBytes
+                + "}";
+    }
+}
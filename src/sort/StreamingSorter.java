@@ -0,0 +1,151 @@
+package sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+
+/**
+ * 增量排序：数据分批到达，每批到达时排好序保存为一个有序段（run），需要时再把所有段归并输出
+ * 新段加入后，只要前一个段不比它长两倍以上就与之合并，段的长度从前往后递减，段数不超过 log2(总数) + 1，
+ * 每个元素最多参与 O(log n) 次合并
+ * {@link #iterator()} 用最小堆对当前所有段做多路归并，每取一个元素只做 O(log 段数) 的工作，不需要等全部归并完成
+ * 不是线程安全的
+ */
+public class StreamingSorter implements Iterable<Integer> {
+    /**
+     * 有序段，创建后不再修改，迭代器可以直接引用
+     */
+    private final List<int[]> runs = new ArrayList<>();
+    private int size;
+
+    public void append(int[] chunk) {
+        append(chunk, 0, chunk.length);
+    }
+
+    /**
+     * 加入 chunk[from, to) 中的元素，chunk 被复制，之后修改它不影响排序结果
+     */
+    public void append(int[] chunk, int from, int to) {
+        Objects.checkFromToIndex(from, to, chunk.length);
+        if (from == to) {
+            return;
+        }
+        int[] run = new int[to - from];
+        System.arraycopy(chunk, from, run, 0, run.length);
+        QuickSort.introSort(run);
+        runs.add(run);
+        size += run.length;
+        while (runs.size() > 1) {
+            int last = runs.size() - 1;
+            int[] right = runs.get(last);
+            int[] left = runs.get(last - 1);
+            if (left.length > 2 * right.length) {
+                break;
+            }
+            runs.remove(last);
+            runs.set(last - 1, MergeSort.merge(left, right));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 取出全部元素，按升序返回，之后排序器为空
+     * 只有一个段时直接返回该段，之前创建的迭代器不应再使用
+     */
+    public int[] drainSorted() {
+        int[] result;
+        if (runs.size() == 1) {
+            result = runs.get(0);
+        } else {
+            result = new int[size];
+            PrimitiveIterator.OfInt iterator = iterator();
+            for (int i = 0; i < result.length; i++) {
+                result[i] = iterator.nextInt();
+            }
+        }
+        runs.clear();
+        size = 0;
+        return result;
+    }
+
+    /**
+     * 按升序遍历当前的全部元素，之后加入的元素不会出现在这次遍历中
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new MergeIterator(runs.toArray(new int[0][]));
+    }
+
+    /**
+     * 多路归并：heap 中是还有剩余元素的段的编号，按段的当前元素组成最小堆
+     */
+    private static final class MergeIterator implements PrimitiveIterator.OfInt {
+        private final int[][] runs;
+        private final int[] positions;
+        private final int[] heap;
+        private int heapSize;
+
+        MergeIterator(int[][] runs) {
+            this.runs = runs;
+            this.positions = new int[runs.length];
+            this.heap = new int[runs.length];
+            for (int i = 0; i < runs.length; i++) {
+                heap[heapSize++] = i;
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return heapSize > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (heapSize == 0) {
+                throw new NoSuchElementException();
+            }
+            int run = heap[0];
+            int value = runs[run][positions[run]++];
+            if (positions[run] == runs[run].length) {
+                heap[0] = heap[--heapSize];
+            }
+            if (heapSize > 0) {
+                siftDown(0);
+            }
+            return value;
+        }
+
+        private int head(int run) {
+            return runs[run][positions[run]];
+        }
+
+        private void siftDown(int i) {
+            int run = heap[i];
+            int key = head(run);
+            for (int k = i * 2 + 1; k < heapSize; k = k * 2 + 1) {
+                if (k + 1 < heapSize && head(heap[k + 1]) < head(heap[k])) {
+                    k++;
+                }
+                if (head(heap[k]) < key) {
+                    heap[i] = heap[k];
+                    i = k;
+                } else {
+                    break;
+                }
+            }
+            heap[i] = run;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package sort;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 向量化的内省排序，结果与 {@link QuickSort#sort(int[])} 相同
+ * 划分使用 VectorKernel：按 SIMD 向量批量比较，查表重排后整段写回，没有依赖数据的分支，避免分支预测失败
+ * 不超过 16 个元素的区间用 Batcher 奇偶归并排序网络排序，网络中的比较交换用 min/max 实现，同样没有分支
+ * 分割值三数/九数取中；划分后小于分割值的部分为空时再按“不大于”划分一次，把等于分割值的元素排除在外，重复元素多时不会退化；
+ * 划分次数超过 2*log2(n) 时改用堆排序
+ * VectorKernel 依赖 jdk.incubator.vector 模块，放在单独的源码目录 src-vector 中，这里通过反射加载，默认编译 src 时不需要这个模块
+ * 没有编译 src-vector、运行时没有 --add-modules jdk.incubator.vector 或平台不支持向量运算时，直接使用 {@link QuickSort#introSort}
+ */
+public class VectorSort {
+    /**
+     * 排序网络的大小，必须是 2 的幂
+     */
+    private static final int NETWORK_SIZE = 16;
+    /**
+     * 排序网络中依次执行比较交换的位置对
+     */
+    private static final int[] NETWORK_LOW;
+    private static final int[] NETWORK_HIGH;
+    private static final String KERNEL_CLASS = "sort.VectorKernel";
+    /**
+     * 向量化的划分，不可用时为 null
+     */
+    private static final Kernel KERNEL = loadKernel();
+
+    static {
+        int[] low = new int[NETWORK_SIZE * NETWORK_SIZE];
+        int[] high = new int[low.length];
+        int count = 0;
+        for (int p = 1; p < NETWORK_SIZE; p <<= 1) {
+            for (int k = p; k >= 1; k >>= 1) {
+                for (int j = k % p; j + k < NETWORK_SIZE; j += 2 * k) {
+                    for (int i = 0; i < Math.min(k, NETWORK_SIZE - j - k); i++) {
+                        if ((i + j) / (2 * p) == (i + j + k) / (2 * p)) {
+                            low[count] = i + j;
+                            high[count] = i + j + k;
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        NETWORK_LOW = Arrays.copyOf(low, count);
+        NETWORK_HIGH = Arrays.copyOf(high, count);
+    }
+
+    /**
+     * 是否使用向量化的划分
+     */
+    public static boolean isVectorized() {
+        return KERNEL != null;
+    }
+
+    public static void sort(int[] a) {
+        sort(a, 0, a.length);
+    }
+
+    /**
+     * 对 [from, to) 区间排序
+     */
+    public static void sort(int[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        if (KERNEL == null) {
+            QuickSort.introSort(a, from, to);
+            return;
+        }
+        int n = to - from;
+        // 划分和排序网络共用同一个辅助数组
+        int[] scratch = new int[Math.max(NETWORK_SIZE, n + KERNEL.lanes())];
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, n)));
+        sort(a, from, to, scratch, depthLimit);
+    }
+
+    private static void sort(int[] a, int from, int to, int[] scratch, int depthLimit) {
+        while (to - from > NETWORK_SIZE) {
+            if (depthLimit-- == 0) {
+                HeapSort.sort(a, from, to);
+                return;
+            }
+            int pivot = QuickSort.choosePivot(a, from, to - 1);
+            int mid = KERNEL.partition(a, from, to, pivot, false, scratch);
+            if (mid == from) {
+                // 分割值是最小值，等于它的元素已经在最终位置
+                from = KERNEL.partition(a, from, to, pivot, true, scratch);
+                continue;
+            }
+            if (mid - from < to - mid) {
+                sort(a, from, mid, scratch, depthLimit);
+                from = mid;
+            } else {
+                sort(a, mid, to, scratch, depthLimit);
+                to = mid;
+            }
+        }
+        networkSort(a, from, to, scratch);
+    }
+
+    /**
+     * 用排序网络对不超过 NETWORK_SIZE 个元素排序，不足的位置补 Integer.MAX_VALUE，排序后留在末尾
+     */
+    private static void networkSort(int[] a, int from, int to, int[] s) {
+        int n = to - from;
+        if (n < 2) {
+            return;
+        }
+        System.arraycopy(a, from, s, 0, n);
+        for (int i = n; i < NETWORK_SIZE; i++) {
+            s[i] = Integer.MAX_VALUE;
+        }
+        for (int c = 0; c < NETWORK_LOW.length; c++) {
+            int i = NETWORK_LOW[c];
+            int j = NETWORK_HIGH[c];
+            int x = s[i];
+            int y = s[j];
+            s[i] = Math.min(x, y);
+            s[j] = Math.max(x, y);
+        }
+        System.arraycopy(s, 0, a, from, n);
+    }
+
+    /**
+     * 加载 VectorKernel，类不存在、jdk.incubator.vector 模块不可用或平台不支持时返回 null
+     */
+    private static Kernel loadKernel() {
+        try {
+            Class.forName("jdk.incubator.vector.IntVector");
+            Kernel kernel = (Kernel) Class.forName(KERNEL_CLASS).getDeclaredConstructor().newInstance();
+            return kernel.isSupported() ? kernel : null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * 向量化划分的接口，由 src-vector 中的 VectorKernel 实现
+     */
+    interface Kernel {
+        boolean isSupported();
+
+        /**
+         * 每次处理的元素个数，scratch 需要多出这么多空间
+         */
+        int lanes();
+
+        /**
+         * 划分 a[from, to)：小于 pivot（orEqual 为 true 时为不大于）的元素放到前面，返回第一个其它元素的位置
+         *
+         * @param scratch 长度不小于 to - from + lanes()
+         */
+        int partition(int[] a, int from, int to, int pivot, boolean orEqual, int[] scratch);
+    }
+}
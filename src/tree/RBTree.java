@@ -1,7 +1,10 @@
 package tree;
 
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
 
 /**
  * 红黑树：平衡的二叉查找树
@@ -13,7 +16,7 @@ import java.util.LinkedList;
  * 4. 任何节点到其叶子节点，所有路径中的黑色节点个数相同
  * 5. 空节点是黑色的
  */
-public class RBTree<E> {
+public class RBTree<E> implements Iterable<E> {
     private Node<E> root;
     private int size;
     private Comparator<? super E> comparator;
@@ -84,6 +87,56 @@ public class RBTree<E> {
         return oldVal;
     }
 
+    /**
+     * 查找与element比较结果相等的元素
+     *
+     * @param element 用于比较的元素
+     * @return 返回树中的元素，未找到时返回null
+     */
+    public E get(E element) {
+        Node<E> node = getNode(element);
+        return node == null ? null : node.element;
+    }
+
+    public boolean contains(E element) {
+        return getNode(element) != null;
+    }
+
+    /**
+     * 查找与element比较结果相等、并且满足 matcher 的元素
+     * 比较器允许不同的元素比较结果相等，这些元素可能分布在相等节点的左右两个子树中，都要查找
+     *
+     * @param element 用于比较的元素
+     * @param matcher 在比较结果相等的元素中进一步筛选
+     * @return 返回树中的元素，未找到时返回null
+     */
+    public E find(E element, Predicate<? super E> matcher) {
+        Node<E> node = findNode(root, element, matcher);
+        return node == null ? null : node.element;
+    }
+
+    /**
+     * 删除 element 这个对象本身（按 == 判断），不会删除与它比较相等的其它元素
+     *
+     * @return 找到并删除时返回 true
+     */
+    public boolean removeExact(E element) {
+        Node<E> node = findNode(root, element, e -> e == element);
+        if (node == null) {
+            return false;
+        }
+        deleteNode(node);
+        return true;
+    }
+
+    /**
+     * 按中序（从小到大）遍历元素
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
     /**
      * 先序遍历：使用递归版本
      */
@@ -225,83 +278,39 @@ public class RBTree<E> {
     }
 
     private void deleteNode(Node<E> node) {
-        // 记录实际删掉的节点的颜色，如果删除掉的是黑色需要调整
-        boolean red = node.red;
-        // 情况1：叶节点，如果是黑色先调整，然后直接删除
-        if (node.left == null && node.right == null) {
-            if (!red) {
-                fixAfterRemove(node);
-            }
-            if (node == node.parent.left) {
-                node.parent.left = null;
-            } else {
-                node.parent.right = null;
+        // 有两个子树时，用后继的元素替换node的元素，转为删除后继节点，后继最多只有一个右子树
+        if (node.left != null && node.right != null) {
+            Node<E> succ = successor(node);
+            node.element = succ.element;
+            node = succ;
+        }
+        // 替换到删掉节点位置的节点
+        Node<E> r = node.left != null ? node.left : node.right;
+        if (r != null) {
+            // 只有一个子树，直接替换，删掉的是黑色时需要调整
+            transplant(node, r);
+            node.left = node.right = node.parent = null;
+            if (!node.red) {
+                fixAfterRemove(r);
             }
-            size--;
+        } else if (node.parent == null) {
+            // 唯一的节点
+            root = null;
         } else {
-            // 记录替换到删掉节点位置的节点
-            Node<E> r;
-            // 情况2：只有一个子树，直接替换
-            if (node.left == null) {
-                r = node.right;
-                transplant(node, node.right);
-                size--;
-                fixAfterRemove(r);
-            } else if (node.right == null) {
-                r = node.left;
-                transplant(node, node.left);
-                size--;
-                fixAfterRemove(r);
-            } else {
-                // 情况3：有两个子树，使用后继替换
-                Node<E> succ = minNode(node.right);
-                red = succ.red;
-                succ.red = node.red;
-                r = succ.right;
-                // 有点繁琐，主要是r为null时，先对succ调整再删除succ
-                if (r != null) {
-                    if (succ == node.right) {
-                        transplant(node, succ);
-                        succ.left = node.left;
-                        node.left.parent = succ;
-                        size--;
-                    } else {
-                        succ.right.parent = succ.parent;
-                        succ.parent.left = succ.right;
-                        Node<E> parent1 = succ.parent;
-                        transplant(node, succ);
-                        parent1.left = null;
-                        succ.right = node.right;
-                        succ.left = node.left;
-                        node.left.parent = succ;
-                        node.right.parent = succ;
-                        size--;
-                    }
-                    if (!red) {
-                        fixAfterRemove(r);
-                    }
-                } else {
-                    if (!red) {
-                        fixAfterRemove(succ);
-                    }
-                    if (succ == node.right) {
-                        transplant(node, succ);
-                        succ.left = node.left;
-                        node.left.parent = succ;
-                        size--;
-                    } else {
-                        Node<E> parent1 = succ.parent;
-                        transplant(node, succ);
-                        parent1.left = null;
-                        succ.right = node.right;
-                        succ.left = node.left;
-                        node.left.parent = succ;
-                        node.right.parent = succ;
-                        size--;
-                    }
+            // 叶节点，如果是黑色先调整，然后直接删除
+            if (!node.red) {
+                fixAfterRemove(node);
+            }
+            if (node.parent != null) {
+                if (node == node.parent.left) {
+                    node.parent.left = null;
+                } else if (node == node.parent.right) {
+                    node.parent.right = null;
                 }
+                node.parent = null;
             }
         }
+        size--;
     }
 
     private void transplant(Node<E> oldNode, Node<E> newNode) {
@@ -343,6 +352,28 @@ public class RBTree<E> {
         return null;
     }
 
+    // 比较相等但不满足 matcher 时，先查左子树，再继续查右子树
+    private Node<E> findNode(Node<E> t, E element, Predicate<? super E> matcher) {
+        while (t != null) {
+            int val = compare(element, t.element);
+            if (val < 0) {
+                t = t.left;
+            } else if (val > 0) {
+                t = t.right;
+            } else {
+                if (matcher.test(t.element)) {
+                    return t;
+                }
+                Node<E> node = findNode(t.left, element, matcher);
+                if (node != null) {
+                    return node;
+                }
+                t = t.right;
+            }
+        }
+        return null;
+    }
+
     private void fixAfterAdd(Node<E> node) {
         // 如果父节点是黑色的无需调整
         while (node != null && node.parent != null && node.parent.red) {
@@ -596,6 +627,25 @@ public class RBTree<E> {
         }
     }
 
+    private class Itr implements Iterator<E> {
+        private Node<E> next = minNode(root);
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            E element = next.element;
+            next = successor(next);
+            return element;
+        }
+    }
+
     private static class Node<E> {
         E element;
         Node<E> parent;